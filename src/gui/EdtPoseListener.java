@@ -0,0 +1,72 @@
+package gui;
+
+import model.PoseListener;
+import model.RobotPose;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/* Переносит изменения робота из потока симуляции в поток Swing.
+Поток симуляции только запоминает последний снимок и, если доставка ещё не
+запланирована, ставит одну задачу в очередь EDT — сколько бы шагов ни прошло,
+в очереди не больше одной задачи на слушателя. Получатель вызывается не чаще
+maxRate раз в секунду: слишком ранняя доставка откладывается таймером Swing и
+отдаёт снимок, самый свежий на момент срабатывания.
+*/
+final class EdtPoseListener implements PoseListener {
+    static final int DISPLAY_RATE = 60; // Кадров в секунду у обычного монитора
+
+    private final Consumer<RobotPose> target;
+    private final long minIntervalNanos;
+    private final AtomicReference<RobotPose> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Timer delayTimer; // Только в EDT
+    private long lastDeliveryNanos; // Только в EDT
+    private RobotPose delivered; // Только в EDT
+
+    EdtPoseListener(Consumer<RobotPose> target, int maxRate) {
+        if (maxRate <= 0) {
+            throw new IllegalArgumentException("Refresh rate must be positive");
+        }
+        this.target = target;
+        this.minIntervalNanos = 1_000_000_000L / maxRate;
+        this.delayTimer = new Timer(0, e -> deliver());
+        this.delayTimer.setRepeats(false);
+        this.lastDeliveryNanos = System.nanoTime() - minIntervalNanos;
+    }
+
+    @Override
+    public void poseChanged(RobotPose pose) {
+        latest.set(pose);
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        long now = System.nanoTime();
+        long wait = lastDeliveryNanos + minIntervalNanos - now;
+        if (wait > 0) {
+            // Рано: доставка остаётся запланированной, новые снимки просто заменяют latest
+            delayTimer.setInitialDelay((int) Math.max(1, (wait + 999_999) / 1_000_000));
+            delayTimer.restart();
+            return;
+        }
+        scheduled.set(false); // До чтения снимка: более поздний снимок запланирует новую доставку
+        RobotPose pose = latest.get();
+        if (pose == null || pose == delivered) {
+            return;
+        }
+        delivered = pose;
+        lastDeliveryNanos = now;
+        target.accept(pose);
+    }
+
+    // Останавливает отложенную доставку; вызывать в EDT после отписки от модели
+    void cancel() {
+        delayTimer.stop();
+    }
+}
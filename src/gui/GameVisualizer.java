@@ -1,6 +1,9 @@
 package gui;
 
+import model.OccupancyGrid;
 import model.RobotModel;
+import model.RobotPose;
+import model.TrajectoryReplay;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -8,21 +11,44 @@ import java.awt.geom.AffineTransform;
 import javax.swing.*;
 
 public class GameVisualizer extends JPanel {
+    private static final int REPLAY_FRAME_MS = 30;
+
     private final RobotModel model;
-    private final Timer repaintTimer;
+    private final EdtPoseListener repaintListener;
+
+    // Просмотр записанной траектории; всё состояние меняется только в EDT
+    private TrajectoryReplay replay;
+    private int replayIndex;
+    private double replayTicks; // Дробная часть шагов, накопленная между кадрами
+    private long replayFrameNanos;
+    private final Timer replayTimer;
+    private Runnable replayListener = () -> { };
 
     public GameVisualizer(RobotModel model) {
         this.model = model;
         setDoubleBuffered(true);
 
-        // Таймер перерисовки (30 FPS)
-        repaintTimer = new Timer(30, e -> repaint());
-        repaintTimer.start();
+        // Перерисовка только по изменениям робота, не чаще частоты монитора: стоящий робот
+        // не будит EDT, а перекрытие и смену размера окна Swing перерисует сам
+        repaintListener = new EdtPoseListener(pose -> repaint(), EdtPoseListener.DISPLAY_RATE);
+        model.addListener(repaintListener);
+        replayTimer = new Timer(REPLAY_FRAME_MS, e -> advanceReplay());
 
         addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                model.setTarget(e.getX(), e.getY());
+                if (replay != null) {
+                    return; // Запись не управляется мышью
+                }
+                if (SwingUtilities.isRightMouseButton(e)) {
+                    toggleObstacle(e.getX(), e.getY());
+                } else if (SwingUtilities.isMiddleMouseButton(e)) {
+                    model.cancel();
+                } else if (e.isShiftDown()) {
+                    model.appendTarget(e.getX(), e.getY()); // Ещё одна точка маршрута
+                } else {
+                    model.setTarget(e.getX(), e.getY());
+                }
             }
         });
     }
@@ -31,24 +57,124 @@ public class GameVisualizer extends JPanel {
         return model;
     }
 
+    /* Показывает запись вместо живого робота, начиная с первого шага, на паузе.
+    Симуляция при этом продолжает идти.
+    */
+    public void startReplay(TrajectoryReplay replay) {
+        this.replay = replay;
+        replayTimer.stop();
+        seek(0);
+    }
+
+    // Возвращает показ живого робота; закрывать запись — забота вызывающего
+    public void stopReplay() {
+        replayTimer.stop();
+        replay = null;
+        replayListener.run();
+        repaint();
+    }
+
+    public TrajectoryReplay getReplay() {
+        return replay;
+    }
+
+    public int getReplayIndex() {
+        return replayIndex;
+    }
+
+    // Переход к любому шагу записи не зависит от её длины
+    public void seek(int index) {
+        if (replay == null || replay.getTickCount() == 0) {
+            return;
+        }
+        replayIndex = Math.max(0, Math.min(index, replay.getTickCount() - 1));
+        replayTicks = 0;
+        replayListener.run();
+        repaint();
+    }
+
+    // Воспроизведение в реальном времени записи
+    public void play() {
+        if (replay == null) {
+            return;
+        }
+        if (replayIndex >= replay.getTickCount() - 1) {
+            seek(0); // С конца записи — сначала
+        }
+        replayFrameNanos = System.nanoTime();
+        replayTimer.start();
+        replayListener.run();
+    }
+
+    public void pause() {
+        replayTimer.stop();
+        replayListener.run();
+    }
+
+    public boolean isPlaying() {
+        return replayTimer.isRunning();
+    }
+
+    // Вызывается в EDT при смене шага, паузе и выходе из просмотра
+    public void setReplayListener(Runnable listener) {
+        this.replayListener = listener;
+    }
+
+    private void advanceReplay() {
+        long now = System.nanoTime();
+        replayTicks += (now - replayFrameNanos) / 1e9 / replay.getStepSeconds();
+        replayFrameNanos = now;
+        int steps = (int) replayTicks;
+        if (steps == 0) {
+            return;
+        }
+        double fraction = replayTicks - steps;
+        seek(replayIndex + steps);
+        replayTicks = fraction;
+        if (replayIndex >= replay.getTickCount() - 1) {
+            pause();
+        }
+    }
+
+    // Правая кнопка ставит или убирает препятствие; оставшийся маршрут ищется заново
+    private void toggleObstacle(int x, int y) {
+        OccupancyGrid obstacles = model.getObstacles();
+        if (obstacles == null) {
+            return;
+        }
+        int cx = obstacles.cellX(x);
+        int cy = obstacles.cellY(y);
+        obstacles.setBlocked(cx, cy, !obstacles.isBlocked(cx, cy));
+        model.replanRoute(); // Все оставшиеся точки маршрута, а не только конечная цель
+        repaint();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D)g;
+        // Весь кадр рисуется по одному шагу симуляции или записи
+        boolean replaying = replay != null && replay.getTickCount() > 0;
+        RobotPose pose = replaying ? replay.poseAt(replayIndex) : model.getPose();
+
+        drawObstacles(g2d);
+        if (!replaying) {
+            drawPath(g2d, pose); // Путь в запись не попадает
+        }
 
         // Отрисовка цели
-        drawTarget(g2d);
+        drawTarget(g2d, pose);
 
         // Отрисовка робота
-        drawRobot(g2d);
+        drawRobot(g2d, pose);
     }
 
-    private void drawRobot(Graphics2D g) {
-        int robotX = (int)model.getX();
-        int robotY = (int)model.getY();
+    private void drawRobot(Graphics2D g, RobotPose pose) {
+        int robotX = (int)pose.getX();
+        int robotY = (int)pose.getY();
 
         AffineTransform t = AffineTransform.getRotateInstance(
-                model.getDirection(), robotX, robotY);
+                pose.getDirection(), robotX, robotY);
         g.setTransform(t);
 
         g.setColor(Color.MAGENTA);
@@ -61,12 +187,50 @@ public class GameVisualizer extends JPanel {
         drawOval(g, robotX + 10, robotY, 5, 5);
     }
 
-    private void drawTarget(Graphics2D g) {
+    private void drawObstacles(Graphics2D g) {
+        OccupancyGrid obstacles = model.getObstacles();
+        if (obstacles == null) {
+            return;
+        }
+        double cellSize = obstacles.getCellSize();
+        int size = (int) Math.ceil(cellSize);
+        int columns = Math.min(obstacles.getWidth(), obstacles.cellX(getWidth()) + 1);
+        int rows = Math.min(obstacles.getHeight(), obstacles.cellY(getHeight()) + 1);
+        g.setColor(Color.DARK_GRAY);
+        for (int cy = 0; cy < rows; cy++) {
+            for (int cx = 0; cx < columns; cx++) {
+                if (obstacles.isBlocked(cx, cy)) {
+                    g.fillRect((int) (cx * cellSize), (int) (cy * cellSize), size, size);
+                }
+            }
+        }
+    }
+
+    private void drawPath(Graphics2D g, RobotPose pose) {
+        double[] path = pose.getRemainingPath();
+        if (path == null || path.length < 4) {
+            return; // Путь из одной точки виден как цель
+        }
+        g.setColor(Color.LIGHT_GRAY);
+        int fromX = (int) pose.getX();
+        int fromY = (int) pose.getY();
+        for (int i = 0; i < path.length; i += 2) {
+            int toX = (int) path[i];
+            int toY = (int) path[i + 1];
+            g.drawLine(fromX, fromY, toX, toY);
+            fromX = toX;
+            fromY = toY;
+        }
+    }
+
+    private void drawTarget(Graphics2D g, RobotPose pose) {
+        int targetX = (int) pose.getTargetX();
+        int targetY = (int) pose.getTargetY();
         g.setTransform(new AffineTransform());
         g.setColor(Color.GREEN);
-        fillOval(g, model.getTargetX(), model.getTargetY(), 5, 5);
+        fillOval(g, targetX, targetY, 5, 5);
         g.setColor(Color.BLACK);
-        drawOval(g, model.getTargetX(), model.getTargetY(), 5, 5);
+        drawOval(g, targetX, targetY, 5, 5);
     }
 
     private static void fillOval(Graphics g, int x, int y, int w, int h) {
@@ -78,6 +242,8 @@ public class GameVisualizer extends JPanel {
     }
 
     public void shutdown() {
-        repaintTimer.stop();
+        model.removeListener(repaintListener);
+        repaintListener.cancel();
+        replayTimer.stop();
     }
 }
\ No newline at end of file
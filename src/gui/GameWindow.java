@@ -1,12 +1,24 @@
 package gui;
 
+import log.Logger;
+import model.TrajectoryReplay;
+
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class GameWindow extends JInternalFrame {
     private final GameVisualizer m_visualizer;
     private final LocalizationManager localizationManager;
 
+    // Панель просмотра записи: видна только в режиме просмотра
+    private final JPanel replayBar = new JPanel(new BorderLayout());
+    private final JButton playButton = new JButton();
+    private final JSlider replaySlider = new JSlider(0, 0, 0);
+    private final JLabel tickLabel = new JLabel();
+    private boolean updatingSlider; // Слайдер двигает просмотр, а не пользователь
+
     public GameWindow(GameVisualizer visualizer, WindowManager windowManager) {
         super("", true, true, true, true);
         this.m_visualizer = visualizer;
@@ -16,6 +28,7 @@ public class GameWindow extends JInternalFrame {
 
         JPanel panel = new JPanel(new BorderLayout());
         panel.add(m_visualizer, BorderLayout.CENTER);
+        panel.add(createReplayBar(), BorderLayout.SOUTH);
         getContentPane().add(panel);
         pack();
 
@@ -29,7 +42,82 @@ public class GameWindow extends JInternalFrame {
         localizationManager.updateUI(this);
     }
 
+    private JPanel createReplayBar() {
+        playButton.putClientProperty("translationKey", "replay.play");
+        playButton.addActionListener(e -> {
+            if (m_visualizer.isPlaying()) {
+                m_visualizer.pause();
+            } else {
+                m_visualizer.play();
+            }
+        });
+
+        replaySlider.addChangeListener(e -> {
+            if (!updatingSlider) {
+                m_visualizer.seek(replaySlider.getValue()); // Перетаскивание — мгновенный переход
+            }
+        });
+
+        JButton closeButton = new JButton();
+        closeButton.putClientProperty("translationKey", "replay.close");
+        closeButton.addActionListener(e -> stopReplay());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(playButton);
+        buttons.add(tickLabel);
+        buttons.add(closeButton);
+        replayBar.add(replaySlider, BorderLayout.NORTH);
+        replayBar.add(buttons, BorderLayout.SOUTH);
+        replayBar.setVisible(false);
+
+        m_visualizer.setReplayListener(this::updateReplayBar);
+        return replayBar;
+    }
+
+    // Открывает запись траектории и показывает её вместо живого робота
+    public void startReplay(Path file) throws IOException {
+        TrajectoryReplay replay = TrajectoryReplay.open(file);
+        stopReplay();
+        updatingSlider = true;
+        replaySlider.setMaximum(Math.max(0, replay.getTickCount() - 1));
+        updatingSlider = false;
+        m_visualizer.startReplay(replay);
+        replayBar.setVisible(true);
+        revalidate();
+    }
+
+    public void stopReplay() {
+        TrajectoryReplay replay = m_visualizer.getReplay();
+        if (replay == null) {
+            return;
+        }
+        m_visualizer.stopReplay();
+        replayBar.setVisible(false);
+        revalidate();
+        try {
+            replay.close();
+        } catch (IOException e) {
+            Logger.error(() -> localizationManager.getString("replay.error") + ": " + e.getMessage());
+        }
+    }
+
+    private void updateReplayBar() {
+        TrajectoryReplay replay = m_visualizer.getReplay();
+        if (replay == null) {
+            return;
+        }
+        int index = m_visualizer.getReplayIndex();
+        updatingSlider = true;
+        replaySlider.setValue(index);
+        updatingSlider = false;
+        tickLabel.setText(String.format(localizationManager.getString("replay.tick"),
+                replay.getFirstTick() + index, index + 1, replay.getTickCount()));
+        playButton.putClientProperty("translationKey", m_visualizer.isPlaying() ? "replay.pause" : "replay.play");
+        localizationManager.updateUI(playButton);
+    }
+
     public void shutdown() {
+        stopReplay();
         m_visualizer.shutdown();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package gui;
+
+import log.LogClock;
+import log.LogEntry;
+import log.LogLevel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/* Отрисовка строки окна лога. Текст строки собирается только для видимых строк,
+в момент отрисовки. Цвет и шрифт для каждого уровня вычисляются один раз.
+*/
+final class LogCellRenderer extends DefaultListCellRenderer {
+    private static final long serialVersionUID = 1L;
+    private static final Color HIT_BACKGROUND = new Color(255, 230, 120);
+
+    private final Color[] levelColors = new Color[LogLevel.values().length];
+    private final Font[] levelFonts = new Font[LogLevel.values().length];
+    private final StringBuilder line = new StringBuilder();
+    private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+    /* Смещение часового пояса верно для моментов [offsetFrom, offsetUntil) — между
+    соседними переходами (например, на летнее время). Пересчитывается, только когда
+    строка выходит из этого интервала, поэтому колонка времени почти не создаёт объектов.
+    */
+    private long zoneOffsetMillis;
+    private long offsetFrom = Long.MAX_VALUE;
+    private long offsetUntil = Long.MIN_VALUE;
+    private long[] hits = new long[0]; // Номера найденных записей по возрастанию
+
+    LogCellRenderer(Font font) {
+        for (LogLevel level : LogLevel.values()) {
+            levelColors[level.level()] = colorFor(level);
+            levelFonts[level.level()] = level.level() >= LogLevel.Error.level() ? font.deriveFont(Font.BOLD) : font;
+        }
+    }
+
+    private static Color colorFor(LogLevel level) {
+        switch (level) {
+            case Trace:
+            case Debug:
+                return Color.GRAY;
+            case Warning:
+                return new Color(180, 110, 0);
+            case Error:
+            case Fatal:
+                return new Color(190, 0, 0);
+            default:
+                return Color.BLACK;
+        }
+    }
+
+    void setHits(long[] hits) {
+        this.hits = hits;
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        LogEntry entry = (LogEntry) value;
+        line.setLength(0);
+        if (entry != null) {
+            appendTime(entry.getTimestamp());
+            line.append(" [").append(entry.getLevel().name()).append("] ");
+            String message = entry.getMessage();
+            if (message.indexOf('\n') >= 0 || message.indexOf('\r') >= 0) {
+                message = message.replace('\r', ' ').replace('\n', ' '); // Строка списка однострочная
+            }
+            line.append(message);
+        }
+        super.getListCellRendererComponent(list, line.toString(), index, isSelected, cellHasFocus);
+        if (entry != null) {
+            int level = entry.getLevel().level();
+            setFont(levelFonts[level]);
+            if (!isSelected) {
+                setForeground(levelColors[level]);
+                if (Arrays.binarySearch(hits, entry.getSequence()) >= 0) {
+                    setBackground(HIT_BACKGROUND);
+                }
+            }
+        }
+        return this;
+    }
+
+    // Колонка времени ЧЧ:ММ:СС.ммм в местном времени
+    private void appendTime(long timestamp) {
+        long epochMillis = LogClock.toEpochMillis(timestamp);
+        long millisOfDay = Math.floorMod(epochMillis + zoneOffsetMillis(epochMillis), 86_400_000L);
+        appendPadded(millisOfDay / 3_600_000, 2).append(':');
+        appendPadded(millisOfDay / 60_000 % 60, 2).append(':');
+        appendPadded(millisOfDay / 1000 % 60, 2).append('.');
+        appendPadded(millisOfDay % 1000, 3);
+    }
+
+    private long zoneOffsetMillis(long epochMillis) {
+        if (epochMillis < offsetFrom || epochMillis >= offsetUntil) {
+            Instant instant = Instant.ofEpochMilli(epochMillis);
+            zoneOffsetMillis = zoneRules.getOffset(instant).getTotalSeconds() * 1000L;
+            // Переход ровно в instant тоже считается предыдущим
+            ZoneOffsetTransition previous = zoneRules.previousTransition(instant.plusNanos(1));
+            ZoneOffsetTransition next = zoneRules.nextTransition(instant);
+            offsetFrom = previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000;
+            offsetUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+        }
+        return zoneOffsetMillis;
+    }
+
+    private StringBuilder appendPadded(long value, int width) {
+        for (long limit = 10; width > 1; width--, limit *= 10) {
+            if (value < limit) {
+                line.append('0');
+            }
+        }
+        return line.append(value);
+    }
+}
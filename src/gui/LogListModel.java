@@ -0,0 +1,178 @@
+package gui;
+
+import log.CircularLogBuffer;
+import log.LogEntry;
+
+import javax.swing.*;
+import java.util.Arrays;
+
+/* Модель списка для окна лога: хранит только номера показанных записей.
+Сами записи берутся из буфера (или архива) при отрисовке строки, поэтому
+обновление стоит столько же, сколько новых записей, а не сколько строк в окне.
+Недавно показанные записи кешируются, чтобы перерисовка не декодировала их заново.
+*/
+final class LogListModel extends AbstractListModel<LogEntry> {
+    private static final long serialVersionUID = 1L;
+    private static final int CACHE_SIZE = 512; // Степень двойки, больше видимых строк
+
+    private final CircularLogBuffer buffer;
+    private final SequenceList sequences = new SequenceList();
+    private final LogEntry[] cache = new LogEntry[CACHE_SIZE];
+
+    LogListModel(CircularLogBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int getSize() {
+        return sequences.size();
+    }
+
+    // Запись строки index; null, если она вытеснена и архива нет
+    @Override
+    public LogEntry getElementAt(int index) {
+        long sequence = sequences.get(index);
+        int slot = (int) (sequence & (CACHE_SIZE - 1));
+        LogEntry entry = cache[slot];
+        if (entry == null || entry.getSequence() != sequence) {
+            entry = buffer.get(sequence);
+            cache[slot] = entry;
+        }
+        return entry;
+    }
+
+    long sequenceAt(int index) {
+        return sequences.get(index);
+    }
+
+    // Строка с записью sequence или -1
+    int indexOf(long sequence) {
+        return sequences.indexOf(sequence);
+    }
+
+    // Добавляет в конец записи, уже отобранные фильтром; запись сразу попадает в кеш
+    void add(LogEntry entry) {
+        sequences.add(entry.getSequence());
+        cache[(int) (entry.getSequence() & (CACHE_SIZE - 1))] = entry;
+    }
+
+    // Сообщает списку о строках, добавленных через add() начиная с firstNew
+    void fireAppended(int firstNew) {
+        if (sequences.size() > firstNew) {
+            fireIntervalAdded(this, firstNew, sequences.size() - 1);
+        }
+    }
+
+    // Вставляет в начало более старые записи (страница истории)
+    void addAllFirst(SequenceList older) {
+        if (older.size() == 0) {
+            return;
+        }
+        sequences.addAllFirst(older);
+        fireIntervalAdded(this, 0, older.size() - 1);
+    }
+
+    void removeFirst(int count) {
+        count = Math.min(count, sequences.size());
+        if (count > 0) {
+            sequences.removeFirst(count);
+            fireIntervalRemoved(this, 0, count - 1);
+        }
+    }
+
+    // Удаляет строки с номерами меньше sequence
+    void removeBefore(long sequence) {
+        removeFirst(sequences.firstAtLeast(sequence));
+    }
+
+    /* Удаляет строки старше отметки времени (см. LogClock). Время записей растёт
+    вместе с номером, поэтому первая оставшаяся строка ищется двоичным поиском;
+    недоступная запись считается старой.
+    */
+    void removeOlderThan(long timestamp) {
+        int low = 0;
+        int high = sequences.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            LogEntry entry = getElementAt(middle);
+            if (entry == null || entry.getTimestamp() < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        removeFirst(low);
+    }
+
+    void clear() {
+        int size = sequences.size();
+        sequences.clear();
+        Arrays.fill(cache, null);
+        if (size > 0) {
+            fireIntervalRemoved(this, 0, size - 1);
+        }
+    }
+
+    // Возрастающая последовательность номеров записей с удалением из начала
+    static final class SequenceList {
+        private long[] values = new long[64];
+        private int start;
+        private int end;
+
+        int size() {
+            return end - start;
+        }
+
+        long get(int index) {
+            return values[start + index];
+        }
+
+        void add(long value) {
+            ensureCapacity(end - start + 1);
+            values[end++] = value;
+        }
+
+        void addAllFirst(SequenceList other) {
+            int count = other.end - other.start;
+            int size = end - start;
+            long[] merged = new long[Math.max(64, (size + count) * 2)];
+            System.arraycopy(other.values, other.start, merged, 0, count);
+            System.arraycopy(values, start, merged, count, size);
+            values = merged;
+            start = 0;
+            end = size + count;
+        }
+
+        void removeFirst(int count) {
+            start = Math.min(end, start + count);
+        }
+
+        void clear() {
+            start = 0;
+            end = 0;
+        }
+
+        // Индекс первого номера не меньше value; size(), если таких нет
+        int firstAtLeast(long value) {
+            int index = Arrays.binarySearch(values, start, end, value);
+            return (index >= 0 ? index : -index - 1) - start;
+        }
+
+        // Индекс номера или -1
+        int indexOf(long value) {
+            int index = Arrays.binarySearch(values, start, end, value);
+            return index >= 0 ? index - start : -1;
+        }
+
+        private void ensureCapacity(int size) {
+            if (start + size <= values.length) {
+                return;
+            }
+            long[] larger = size * 2 <= values.length ? values : new long[size * 2];
+            System.arraycopy(values, start, larger, 0, end - start);
+            end -= start;
+            start = 0;
+            values = larger;
+        }
+    }
+}
@@ -7,29 +7,68 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
+/* Окно лога. Строки показывает виртуальный список: модель хранит только номера
+записей, а текст строки собирается при её отрисовке, поэтому обновление на EDT
+стоит столько же, сколько новых записей, независимо от размера лога.
+*/
 public class LogWindow extends JInternalFrame implements LogChangeListener {
     private final LogWindowSource logSource;
-    private final JTextArea logContent;
+    private final LogListModel model;
+    private final JList<LogEntry> logList;
+    private final LogCellRenderer renderer;
     private final Timer updateTimer;
     private LogLevel currentFilterLevel = LogLevel.Trace;
     private final LocalizationManager localizationManager;
+    // Получает только новые записи с прошлого обновления
+    private final LogSubscription subscription;
+    private final Consumer<LogEntry> modelAppender = this::appendFiltered;
+    // История из архива подгружается страницами при прокрутке вверх
+    private static final int HISTORY_PAGE = 200;
+    private static final int MAX_PAGES_PER_LOAD = 10;
+    private final JScrollBar verticalScrollBar;
+    private long oldestShownSequence; // Самая старая запись, до которой уже дошёл просмотр
+    private int historyLines; // Сколько строк подгружено из архива
+    // Поиск по индексу: найденные строки подсвечиваются, Enter переходит к следующей
+    private static final int SEARCH_LIMIT = 1000;
+    private final JTextField searchField;
+    private long[] searchHits = new long[0];
+    private int searchCursor;
+    private String lastQuery = "";
+    // Просмотр за последние N секунд (0 — все записи); поиск начала идёт двоичным поиском по времени
+    private static final Integer[] TIME_WINDOWS = {0, 10, 60, 300};
+    private int timeWindowSeconds;
+    private static final int EXPORT_PROGRESS_MAX = 100;
 
     public LogWindow(LogWindowSource logSource, WindowManager windowManager) {
         super("", true, true, true, true);
         this.logSource = logSource;
+        this.subscription = logSource.subscribe();
         this.logSource.registerListener(this);
         this.localizationManager = LocalizationManager.getInstance(windowManager);
 
         putClientProperty("translationKey", "log.window.title");
 
-        logContent = new JTextArea();
-        logContent.setEditable(false);
-        logContent.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        model = new LogListModel(logSource.getBuffer());
+        logList = new JList<>(model);
+        Font font = new Font("Monospaced", Font.PLAIN, 12);
+        logList.setFont(font);
+        renderer = new LogCellRenderer(font);
+        logList.setCellRenderer(renderer);
+        // Размер строки задаётся образцом, иначе список измеряет каждую строку при любом изменении
+        logList.setPrototypeCellValue(new LogEntry(LogLevel.Warning, "W".repeat(160)));
 
-        JScrollPane scrollPane = new JScrollPane(logContent);
+        JScrollPane scrollPane = new JScrollPane(logList);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+        verticalScrollBar = scrollPane.getVerticalScrollBar();
+        verticalScrollBar.addAdjustmentListener(e -> {
+            if (!e.getValueIsAdjusting() && e.getValue() == verticalScrollBar.getMinimum()) {
+                loadOlderHistory();
+            }
+        });
 
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 
@@ -37,7 +76,7 @@ public class LogWindow extends JInternalFrame implements LogChangeListener {
         levelFilter.setSelectedItem(LogLevel.Trace);
         levelFilter.addActionListener(e -> {
             currentFilterLevel = (LogLevel) levelFilter.getSelectedItem();
-            updateLogContent();
+            rebuildLogContent();
         });
         JLabel levelLabel = new JLabel();
         levelLabel.putClientProperty("translationKey", "level.label");
@@ -45,11 +84,39 @@ public class LogWindow extends JInternalFrame implements LogChangeListener {
         controlPanel.add(levelLabel);
         controlPanel.add(levelFilter);
 
+        JComboBox<Integer> timeFilter = new JComboBox<>(TIME_WINDOWS);
+        timeFilter.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                int seconds = (Integer) value;
+                String text = seconds == 0 ? localizationManager.getString("time.all")
+                        : String.format(localizationManager.getString("time.last.seconds"), seconds);
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        timeFilter.addActionListener(e -> {
+            timeWindowSeconds = (Integer) timeFilter.getSelectedItem();
+            rebuildLogContent();
+        });
+        JLabel timeLabel = new JLabel();
+        timeLabel.putClientProperty("translationKey", "time.label");
+        controlPanel.add(timeLabel);
+        controlPanel.add(timeFilter);
+
         JButton clearButton = new JButton();
         clearButton.putClientProperty("translationKey", "clear.button");
-        clearButton.addActionListener(e -> logContent.setText(""));
+        clearButton.addActionListener(e -> model.clear());
         controlPanel.add(clearButton);
 
+        searchField = new JTextField(15);
+        searchField.addActionListener(e -> findNext());
+        JButton searchButton = new JButton();
+        searchButton.putClientProperty("translationKey", "search.button");
+        searchButton.addActionListener(e -> findNext());
+        controlPanel.add(searchField);
+        controlPanel.add(searchButton);
+
         JButton saveButton = new JButton();
         saveButton.putClientProperty("translationKey", "save.button");
         saveButton.addActionListener(this::saveLogToFile);
@@ -64,44 +131,197 @@ public class LogWindow extends JInternalFrame implements LogChangeListener {
 
         updateTimer = new Timer(100, e -> updateLogContent());
         updateTimer.setRepeats(false);
-        updateLogContent();
+        rebuildLogContent();
 
         localizationManager.updateUI(this);
     }
 
+    // Добавляет в конец только записи, появившиеся с прошлого обновления
     private void updateLogContent() {
-        StringBuilder content = new StringBuilder();
-        for (LogEntry entry : logSource.all()) {
-            if (entry.getLevel().level() >= currentFilterLevel.level()) {
-                content.append(String.format("[%s] %s%n",
-                        entry.getLevel().name(), entry.getMessage()));
+        boolean atBottom = verticalScrollBar.getValue() + verticalScrollBar.getVisibleAmount()
+                >= verticalScrollBar.getMaximum();
+        int firstNew = model.getSize();
+        if (subscription.poll(modelAppender) > 0) {
+            // Часть записей вытеснена до того, как окно их прочитало: в списке был бы пропуск
+            rebuildLogContent();
+            return;
+        }
+        boolean added = model.getSize() > firstNew;
+        model.fireAppended(firstNew);
+        trimToBufferSize(); // И без новых строк: показанные записи могли быть вытеснены
+        if (added && atBottom) {
+            logList.ensureIndexIsVisible(model.getSize() - 1);
+        }
+    }
+
+    /* Полная перестройка нужна только при смене фильтра или после потери записей
+    подпиской: записи нужного уровня берутся из индекса,
+    а записи за последние N секунд — начиная с найденной двоичным поиском по времени.
+    */
+    private void rebuildLogContent() {
+        long end = logSource.getBuffer().nextSequence();
+        subscription.seek(end);
+        model.clear();
+        oldestShownSequence = end;
+        historyLines = 0;
+        Consumer<LogEntry> collector = entry -> {
+            if (entry.getSequence() < end) {
+                oldestShownSequence = Math.min(oldestShownSequence, entry.getSequence());
+                appendFiltered(entry);
+            }
+        };
+        if (timeWindowSeconds > 0) {
+            logSource.forEachByTime(LogClock.secondsAgo(timeWindowSeconds), Long.MAX_VALUE, collector);
+        } else {
+            logSource.forEachNewest(currentFilterLevel, logSource.getBuffer().capacity(), collector);
+        }
+        subscription.poll(modelAppender); // Записи, добавленные во время перестройки
+        model.fireAppended(0);
+        trimToBufferSize();
+        searchHits = new long[0];
+        renderer.setHits(searchHits);
+        if (model.getSize() > 0) {
+            logList.ensureIndexIsVisible(model.getSize() - 1);
+        }
+    }
+
+    /* Подгружает страницу более старых записей из архива и вставляет её в начало.
+    Позиция прокрутки сдвигается на высоту вставки, чтобы строки под курсором не прыгали.
+    */
+    private void loadOlderHistory() {
+        CircularLogBuffer buffer = logSource.getBuffer();
+        if (buffer.getArchive() == null || timeWindowSeconds > 0) {
+            return;
+        }
+        long historyFirst = buffer.historyFirstSequence();
+        LogListModel.SequenceList older = new LogListModel.SequenceList();
+        for (int page = 0; page < MAX_PAGES_PER_LOAD && older.size() == 0
+                && oldestShownSequence > historyFirst; page++) {
+            long from = Math.max(historyFirst, oldestShownSequence - HISTORY_PAGE);
+            int count = (int) (oldestShownSequence - from);
+            buffer.forEachInHistory(from, count, entry -> {
+                if (entry.getLevel().level() >= currentFilterLevel.level()) {
+                    older.add(entry.getSequence());
+                }
+            });
+            oldestShownSequence = from;
+        }
+        if (older.size() == 0) {
+            return;
+        }
+        int oldValue = verticalScrollBar.getValue();
+        model.addAllFirst(older);
+        historyLines += older.size();
+        int shift = older.size() * logList.getFixedCellHeight();
+        SwingUtilities.invokeLater(() -> verticalScrollBar.setValue(oldValue + shift));
+    }
+
+    /* Окно показывает не больше строк, чем помещается в буфер лога. Без архива
+    вытесненные записи взять неоткуда, поэтому их строки удаляются сразу, даже если
+    фильтр по уровню оставил в окне меньше строк, чем ёмкость буфера.
+    В режиме «последние N секунд» удаляются и строки, вышедшие из окна по времени.
+    */
+    private void trimToBufferSize() {
+        CircularLogBuffer buffer = logSource.getBuffer();
+        if (buffer.getArchive() == null) {
+            model.removeBefore(buffer.firstSequence());
+        }
+        if (timeWindowSeconds > 0) {
+            model.removeOlderThan(LogClock.secondsAgo(timeWindowSeconds));
+        }
+        if (historyLines > 0) {
+            return; // Пользователь листает историю: строки сверху не удаляем до смены фильтра
+        }
+        model.removeFirst(model.getSize() - buffer.capacity());
+    }
+
+    private void appendFiltered(LogEntry entry) {
+        if (entry.getLevel().level() >= currentFilterLevel.level()) {
+            model.add(entry);
+        }
+    }
+
+    /* Ищет записи по полнотекстовому индексу и подсвечивает показанные строки.
+    Повторный поиск того же запроса переходит к следующему (более старому) совпадению.
+    */
+    private void findNext() {
+        String query = searchField.getText().trim();
+        if (!query.equals(lastQuery) || searchHits.length == 0) {
+            lastQuery = query;
+            searchHits = logSource.enableSearch().search(query, SEARCH_LIMIT);
+            searchCursor = searchHits.length;
+            renderer.setHits(searchHits);
+            logList.repaint();
+        }
+        // От новых совпадений к старым, по кругу
+        for (int attempts = 0; attempts < searchHits.length; attempts++) {
+            searchCursor = searchCursor <= 0 ? searchHits.length - 1 : searchCursor - 1;
+            int row = model.indexOf(searchHits[searchCursor]);
+            if (row >= 0) {
+                logList.setSelectedIndex(row);
+                logList.ensureIndexIsVisible(row);
+                return;
             }
         }
-        logContent.setText(content.toString());
-        logContent.setCaretPosition(logContent.getDocument().getLength());
     }
 
+    /* Выгрузка идёт в фоновой задаче с окном прогресса и кнопкой отмены, EDT не блокируется.
+    Формат выбирается по имени файла: .ndjson — JSON по строке на запись, .gz — сжатие.
+    */
     private void saveLogToFile(ActionEvent e) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle(localizationManager.getString("save.log.title"));
         fileChooser.setSelectedFile(new File("robot_log.txt"));
 
-        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            File file = fileChooser.getSelectedFile();
-            try (PrintWriter writer = new PrintWriter(file)) {
-                for (LogEntry entry : logSource.all()) {
-                    writer.printf("[%s] %s%n",
-                            entry.getLevel().name(), entry.getMessage());
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        LogExporter exporter = LogExporter.forFile(logSource.getBuffer(), file.toPath());
+        ProgressMonitor monitor = new ProgressMonitor(this,
+                localizationManager.getString("export.progress"), file.getName(), 0, EXPORT_PROGRESS_MAX);
+        monitor.setMillisToDecideToPopup(200);
+        SwingWorker<Long, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws IOException {
+                return exporter.exportTo(file.toPath(), (done, total) ->
+                        setProgress(total == 0 ? EXPORT_PROGRESS_MAX
+                                : (int) (done * EXPORT_PROGRESS_MAX / total)));
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    long exported = get();
+                    Logger.debug(() -> localizationManager.getString("log.saved.message") + ": "
+                            + file.getAbsolutePath() + " (" + exported + ")");
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof CancellationException) { // Отменено из окна прогресса
+                        Logger.debug(() -> localizationManager.getString("export.cancelled") + ": " + file.getAbsolutePath());
+                        return;
+                    }
+                    Logger.error(() -> localizationManager.getString("log.save.error") + ": " + cause.getMessage());
+                    JOptionPane.showMessageDialog(LogWindow.this,
+                            localizationManager.getString("log.save.error.message"),
+                            localizationManager.getString("error.title"),
+                            JOptionPane.ERROR_MESSAGE);
                 }
-                Logger.debug(localizationManager.getString("log.saved.message") + ": " + file.getAbsolutePath());
-            } catch (IOException ex) {
-                Logger.error(localizationManager.getString("log.save.error") + ": " + ex.getMessage());
-                JOptionPane.showMessageDialog(this,
-                        localizationManager.getString("log.save.error.message"),
-                        localizationManager.getString("error.title"),
-                        JOptionPane.ERROR_MESSAGE);
             }
-        }
+        };
+        // Прогресс приходит на EDT; там же проверяется кнопка отмены
+        worker.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                monitor.setProgress((Integer) event.getNewValue());
+            }
+            if (monitor.isCanceled()) {
+                exporter.cancel();
+            }
+        });
+        worker.execute();
     }
 
     @Override
@@ -117,4 +337,4 @@ public class LogWindow extends JInternalFrame implements LogChangeListener {
         updateTimer.stop();
         super.dispose();
     }
-}
\ No newline at end of file
+}
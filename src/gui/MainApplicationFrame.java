@@ -1,6 +1,8 @@
 package gui;
 
 import model.RobotModel;
+import model.SimulationLoop;
+import log.LogFloodGuard;
 import log.Logger;
 
 import javax.swing.*;
@@ -9,6 +11,7 @@ import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
 import java.util.Locale;
 
 public class MainApplicationFrame extends JFrame {
@@ -33,6 +36,7 @@ public class MainApplicationFrame extends JFrame {
         // Устанавливаем translationKey на JRootPane
         getRootPane().putClientProperty("translationKey", "app.title");
         localizationManager.updateUI(this);
+        localizeLog();
 
         windowManager.initializeWindows();
         windowManager.loadWindowState(this);
@@ -50,6 +54,7 @@ public class MainApplicationFrame extends JFrame {
         JMenuBar menuBar = new JMenuBar();
         menuBar.add(createLookAndFeelMenu());
         menuBar.add(createTestMenu());
+        menuBar.add(createSimulationMenu());
         menuBar.add(createFileMenu());
         localizationManager.updateUI(menuBar); // Обновляем меню после создания
         return menuBar;
@@ -80,11 +85,86 @@ public class MainApplicationFrame extends JFrame {
         menu.getAccessibleContext().setAccessibleDescription(localizationManager.getString("test.menu.description"));
 
         JMenuItem logMessageItem = createMenuItem("log.message", KeyEvent.VK_L,
-                () -> Logger.debug(localizationManager.getString("new.line.message")));
+                () -> Logger.debug(() -> localizationManager.getString("new.line.message")));
         menu.add(logMessageItem);
         return menu;
     }
 
+    // Меню скорости симуляции: пауза, реальное время, ускорение, максимум
+    private JMenu createSimulationMenu() {
+        JMenu menu = new JMenu();
+        menu.setMnemonic(KeyEvent.VK_S);
+        menu.putClientProperty("translationKey", "simulation.menu");
+        menu.getAccessibleContext().setAccessibleDescription(localizationManager.getString("simulation.menu.description"));
+
+        SimulationLoop loop = robotModel.getSimulationLoop();
+        ButtonGroup group = new ButtonGroup();
+        String[] keys = {"simulation.pause", "simulation.speed.normal", "simulation.speed.fast", "simulation.speed.max"};
+        double[] scales = {SimulationLoop.PAUSED, SimulationLoop.REAL_TIME, SimulationLoop.FAST,
+                SimulationLoop.AS_FAST_AS_POSSIBLE};
+        for (int i = 0; i < keys.length; i++) {
+            double scale = scales[i];
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem();
+            item.putClientProperty("translationKey", keys[i]);
+            item.setSelected(scale == loop.getTimeScale());
+            item.addActionListener(event -> loop.setTimeScale(scale));
+            localizationManager.updateUI(item);
+            group.add(item);
+            menu.add(item);
+        }
+
+        menu.addSeparator();
+        JCheckBoxMenuItem recordItem = new JCheckBoxMenuItem();
+        recordItem.putClientProperty("translationKey", "simulation.record");
+        recordItem.addActionListener(event -> toggleRecording(recordItem));
+        localizationManager.updateUI(recordItem);
+        menu.add(recordItem);
+        menu.add(createMenuItem("simulation.replay", KeyEvent.VK_R, this::openReplay));
+        return menu;
+    }
+
+    // Запись траектории робота в файл; снятая галочка завершает запись
+    private void toggleRecording(JCheckBoxMenuItem item) {
+        try {
+            if (!item.isSelected()) {
+                robotModel.stopRecording();
+                return;
+            }
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle(localizationManager.getString("record.save.title"));
+            fileChooser.setSelectedFile(new java.io.File("trajectory.rtr"));
+            if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+                item.setSelected(false);
+                return;
+            }
+            robotModel.startRecording(fileChooser.getSelectedFile().toPath());
+            Logger.debug(() -> localizationManager.getString("record.started") + ": "
+                    + fileChooser.getSelectedFile().getAbsolutePath());
+        } catch (IOException e) {
+            item.setSelected(robotModel.isRecording());
+            Logger.error(() -> localizationManager.getString("record.error") + ": " + e.getMessage());
+            JOptionPane.showMessageDialog(this, localizationManager.getString("record.error") + ": " + e.getMessage(),
+                    localizationManager.getString("error.title"), JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Просмотр записанной траектории в окне игрового поля
+    private void openReplay() {
+        GameWindow gameWindow = windowManager.getGameWindow();
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(localizationManager.getString("replay.open.title"));
+        if (gameWindow == null || fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            gameWindow.startReplay(fileChooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            Logger.error(() -> localizationManager.getString("replay.error") + ": " + e.getMessage());
+            JOptionPane.showMessageDialog(this, localizationManager.getString("replay.error") + ": " + e.getMessage(),
+                    localizationManager.getString("error.title"), JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     // Метод для создания пунктов меню
     private JMenuItem createMenuItem(String translationKey, int mnemonic, Runnable action) {
         JMenuItem item = new JMenuItem();
@@ -101,7 +181,7 @@ public class MainApplicationFrame extends JFrame {
             UIManager.setLookAndFeel(className);
             SwingUtilities.updateComponentTreeUI(this);
         } catch (Exception e) {
-            Logger.debug(localizationManager.getString("look.and.feel.error") + ": " + e.getMessage());
+            Logger.debug(() -> localizationManager.getString("look.and.feel.error") + ": " + e.getMessage());
         }
     }
 
@@ -151,6 +231,15 @@ public class MainApplicationFrame extends JFrame {
         for (JInternalFrame frame : desktopPane.getAllFrames()) {
             localizationManager.updateUI(frame);
         }
+        localizeLog();
+    }
+
+    // Сводку о повторах пишет сам лог, поэтому её шаблон передаётся туда при смене языка
+    private void localizeLog() {
+        LogFloodGuard guard = Logger.getDefaultLogSource().getFloodGuard();
+        if (guard != null) {
+            guard.setSummaryFormat(localizationManager.getString("log.repeated"));
+        }
     }
 
     // Закрытие приложения
@@ -181,8 +270,9 @@ public class MainApplicationFrame extends JFrame {
                     }
                 }
                 if (allWindowsClosed) {
-                    Logger.debug(localizationManager.getString("application.closed.message"));
+                    Logger.debug(() -> localizationManager.getString("application.closed.message"));
                 }
+                Logger.shutdown(); // Дописываем файл лога, если он включён
             });
         }
     }
@@ -1,36 +1,52 @@
 package gui;
 
 import model.RobotModel;
+import model.RobotPose;
 
 import javax.swing.*;
-import java.util.Observable;
-import java.util.Observer;
+import javax.swing.event.InternalFrameAdapter;
+import javax.swing.event.InternalFrameEvent;
 
-public class RobotCoordinatesWindow extends JInternalFrame implements Observer {
+public class RobotCoordinatesWindow extends JInternalFrame {
+    private static final int REFRESH_RATE = 10; // Текст чаще 10 раз в секунду не прочитать
+
+    private final RobotModel model;
     private final JLabel coordsLabel;
     private final LocalizationManager localizationManager;
 
     public RobotCoordinatesWindow(RobotModel model, WindowManager windowManager) {
         super("", true, true, true, true);
+        this.model = model;
         localizationManager = LocalizationManager.getInstance(windowManager);
 
         putClientProperty("translationKey", "coordinates.window.title");
 
         coordsLabel = new JLabel();
         add(coordsLabel);
-        model.addObserver(this);
+        // Изменения приходят в EDT не чаще REFRESH_RATE раз в секунду
+        EdtPoseListener listener = new EdtPoseListener(this::showPose, REFRESH_RATE);
+        model.addListener(listener);
+        addInternalFrameListener(new InternalFrameAdapter() {
+            @Override
+            public void internalFrameClosed(InternalFrameEvent e) {
+                model.removeListener(listener);
+                listener.cancel();
+            }
+        });
         setSize(200, 100);
         setLocation(100, 100);
         setVisible(true);
 
-        update(null, null); // Инициализация текста
+        showPose(model.getPose()); // Инициализация текста
         localizationManager.updateUI(this);
     }
 
-    @Override
-    public void update(Observable o, Object arg) {
-        if (o instanceof RobotModel model) {
-            coordsLabel.setText(String.format("x: %.2f, y: %.2f", model.getX(), model.getY()));
+    private void showPose(RobotPose pose) {
+        String text = String.format("x: %.2f, y: %.2f", pose.getX(), pose.getY());
+        double arrival = model.getArrivalSeconds(pose);
+        if (arrival > 0) {
+            text += ", " + String.format(localizationManager.getString("coordinates.arrival"), arrival);
         }
+        coordsLabel.setText(text);
     }
-}
\ No newline at end of file
+}
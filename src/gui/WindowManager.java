@@ -15,6 +15,7 @@ public class WindowManager {
     private static final Dimension NORMAL_SIZE = new Dimension(950, 850);
     private final LocalizationManager localizationManager;
     private static final String LOCALE_KEY = "locale";
+    private GameWindow gameWindow;
 
     public WindowManager(JDesktopPane desktopPane, RobotModel robotModel) {
         this.desktopPane = desktopPane;
@@ -30,7 +31,7 @@ public class WindowManager {
         addWindow(logWindow);
 
         GameVisualizer visualizer = new GameVisualizer(robotModel);
-        GameWindow gameWindow = new GameWindow(visualizer, this); // Передаём this
+        gameWindow = new GameWindow(visualizer, this); // Передаём this
         gameWindow.setBounds(520, 10, 400, 400);
         addWindow(gameWindow);
 
@@ -43,13 +44,17 @@ public class WindowManager {
         }
     }
 
+    public GameWindow getGameWindow() {
+        return gameWindow;
+    }
+
     public void addWindow(JInternalFrame frame) {
         desktopPane.add(frame);
         frame.setVisible(true);
         try {
             frame.setSelected(true);
         } catch (java.beans.PropertyVetoException e) {
-            Logger.error(localizationManager.getString("window.selection.error") + ": " + e.getMessage());
+            Logger.error(() -> localizationManager.getString("window.selection.error") + ": " + e.getMessage());
         }
     }
 
@@ -65,9 +70,9 @@ public class WindowManager {
             props.setProperty("main.y", String.valueOf(frame.getY()));
             props.setProperty("main.width", String.valueOf(width));
             props.setProperty("main.height", String.valueOf(height));
-            Logger.debug(localizationManager.getString("saved.normal.state") + ": x=" + frame.getX() + ", y=" + frame.getY() + ", width=" + width + ", height=" + height);
+            Logger.debug(() -> localizationManager.getString("saved.normal.state") + ": x=" + frame.getX() + ", y=" + frame.getY() + ", width=" + width + ", height=" + height);
         } else {
-            Logger.debug(localizationManager.getString("saved.state") + ": state=" + state);
+            Logger.debug(() -> localizationManager.getString("saved.state") + ": state=" + state);
         }
 
         for (JInternalFrame internalFrame : desktopPane.getAllFrames()) {
@@ -95,7 +100,7 @@ public class WindowManager {
         frame.addWindowStateListener(e -> {
             int oldState = e.getOldState();
             int newState = e.getNewState();
-            Logger.debug(localizationManager.getString("window.state.changed") + ": " + localizationManager.getString("old.state") + "=" + oldState + ", " + localizationManager.getString("new.state") + "=" + newState);
+            Logger.debug(() -> localizationManager.getString("window.state.changed") + ": " + localizationManager.getString("old.state") + "=" + oldState + ", " + localizationManager.getString("new.state") + "=" + newState);
             if ((newState == Frame.NORMAL) &&
                     (oldState == Frame.MAXIMIZED_BOTH || oldState == Frame.ICONIFIED)) {
                 frame.setSize(NORMAL_SIZE);
@@ -106,31 +111,30 @@ public class WindowManager {
 
         if (!configFile.exists()) {
             frame.setExtendedState(Frame.MAXIMIZED_BOTH);
-            Logger.debug(localizationManager.getString("first.launch.maximized"));
+            Logger.debug(() -> localizationManager.getString("first.launch.maximized"));
             return;
         }
 
         try {
             int state = Integer.parseInt(props.getProperty("main.state", String.valueOf(Frame.MAXIMIZED_BOTH)));
-            Logger.debug(localizationManager.getString("loaded.window.state") + ": state=" + state);
+            Logger.debug(() -> localizationManager.getString("loaded.window.state") + ": state=" + state);
             frame.setExtendedState(state);
 
             if (state == Frame.NORMAL) {
                 int x = Integer.parseInt(props.getProperty("main.x", "-1"));
                 int y = Integer.parseInt(props.getProperty("main.y", "-1"));
-                int width = Integer.parseInt(props.getProperty("main.width", String.valueOf(NORMAL_SIZE.width)));
-                int height = Integer.parseInt(props.getProperty("main.height", String.valueOf(NORMAL_SIZE.height)));
-
-                width = Math.max(width, NORMAL_SIZE.width);
-                height = Math.max(height, NORMAL_SIZE.height);
+                int width = Math.max(Integer.parseInt(props.getProperty("main.width", String.valueOf(NORMAL_SIZE.width))),
+                        NORMAL_SIZE.width);
+                int height = Math.max(Integer.parseInt(props.getProperty("main.height", String.valueOf(NORMAL_SIZE.height))),
+                        NORMAL_SIZE.height);
 
                 Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
                 if (x < 0 || y < 0 || x + width > screenSize.width || y + height > screenSize.height) {
-                    Logger.debug(localizationManager.getString("invalid.coordinates") + " (x=" + x + ", y=" + y + "), " + localizationManager.getString("center.window"));
+                    Logger.debug(() -> localizationManager.getString("invalid.coordinates") + " (x=" + x + ", y=" + y + "), " + localizationManager.getString("center.window"));
                     centerWindow(frame);
                 } else {
                     frame.setBounds(x, y, width, height);
-                    Logger.debug(localizationManager.getString("set.saved.coordinates") + ": x=" + x + ", y=" + y + ", width=" + width + ", height=" + height);
+                    Logger.debug(() -> localizationManager.getString("set.saved.coordinates") + ": x=" + x + ", y=" + y + ", width=" + width + ", height=" + height);
                 }
             }
 
@@ -141,9 +145,9 @@ public class WindowManager {
                 }
             }
         } catch (NumberFormatException e) {
-            Logger.error(localizationManager.getString("window.state.load.error") + ": " + e.getMessage());
+            Logger.error(() -> localizationManager.getString("window.state.load.error") + ": " + e.getMessage());
             frame.setExtendedState(Frame.MAXIMIZED_BOTH);
-            Logger.debug(localizationManager.getString("load.error.maximized"));
+            Logger.debug(() -> localizationManager.getString("load.error.maximized"));
         }
     }
 
@@ -166,7 +170,7 @@ public class WindowManager {
             frame.setBounds(x, y, width, height);
             frame.setIcon(icon);
         } catch (Exception e) {
-            Logger.error(localizationManager.getString("internal.window.load.error") + ": " + e.getMessage());
+            Logger.error(() -> localizationManager.getString("internal.window.load.error") + ": " + e.getMessage());
         }
     }
 
@@ -175,7 +179,7 @@ public class WindowManager {
         int x = (screenSize.width - frame.getWidth()) / 2;
         int y = (screenSize.height - frame.getHeight()) / 2;
         frame.setLocation(x, y);
-        Logger.debug(localizationManager.getString("centering.window") + ": x=" + x + ", y=" + y);
+        Logger.debug(() -> localizationManager.getString("centering.window") + ": x=" + x + ", y=" + y);
     }
 
     private Properties loadProperties() {
@@ -185,7 +189,7 @@ public class WindowManager {
             try (FileInputStream fis = new FileInputStream(configFile)) {
                 props.load(fis);
             } catch (IOException e) {
-                Logger.error(localizationManager.getString("window.state.load.error") + ": " + e.getMessage());
+                Logger.error(() -> localizationManager.getString("window.state.load.error") + ": " + e.getMessage());
             }
         }
         return props;
@@ -197,10 +201,10 @@ public class WindowManager {
             configFile.getParentFile().mkdirs();
             try (FileOutputStream fos = new FileOutputStream(configFile)) {
                 props.store(fos, localizationManager.getString("window.state.config.comment"));
-                Logger.debug(localizationManager.getString("config.saved") + " " + CONFIG_PATH);
+                Logger.debug(() -> localizationManager.getString("config.saved") + " " + CONFIG_PATH);
             }
         } catch (IOException e) {
-            Logger.error(localizationManager.getString("window.state.save.error") + ": " + e.getMessage());
+            Logger.error(() -> localizationManager.getString("window.state.save.error") + ": " + e.getMessage());
         }
     }
 
@@ -1,73 +1,291 @@
 package log;
 
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.List;
+import java.util.function.Consumer;
 
 // Кольцевой буфер для хранения логов с потокобезопасностью
 public class CircularLogBuffer implements Iterable<LogEntry> {
-    private final LogEntry[] buffer; // Массив для хранения записей
-    private final int capacity; // Максимальная ёмкость
-    private int head; // Индекс начала (где хранится самая старая запись)
-    private int size; // Текущее количество записей
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Для синхронизации
+    // Способ синхронизации доступа к слотам
+    public enum Mode {
+        LOCKING, // Общая блокировка чтения/записи
+        LOCK_FREE, // Слоты захватываются по номеру последовательности, читатели не мешают писателям
+        COMPACT // Уровни и сообщения в примитивных массивах, LogEntry создаётся только при чтении
+    }
+
+    private final LogStorage storage;
+    private final Mode mode;
+    private volatile LogArchive archive;
 
     public CircularLogBuffer(int capacity) {
+        this(capacity, Mode.LOCKING);
+    }
+
+    public CircularLogBuffer(int capacity, Mode mode) {
         if (capacity <= 0) {
             throw new IllegalArgumentException("Capacity must be positive");
         }
-        this.capacity = capacity;
-        this.buffer = new LogEntry[capacity];
-        this.head = 0;
-        this.size = 0;
-    }
-
-    // Добавление записи (вытесняет старую, если буфер полон)
-    public void append(LogLevel logLevel, String message) {
-        LogEntry entry = new LogEntry(logLevel, message);
-        lock.writeLock().lock();
-        try {
-            int index = (head + size) % capacity;
-            buffer[index] = entry;
-            if (size < capacity) {
-                size++;
-            } else {
-                head = (head + 1) % capacity; // Сдвигаем начало, вытесняя старую запись
+        if (mode == null) {
+            throw new IllegalArgumentException("Mode must not be null");
+        }
+        this.mode = mode;
+        if (mode == Mode.LOCK_FREE) {
+            this.storage = new LockFreeLogStorage(capacity);
+        } else if (mode == Mode.COMPACT) {
+            this.storage = new CompactLogStorage(capacity, CompactLogStorage.defaultArenaBytes(capacity));
+        } else {
+            this.storage = new LockingLogStorage(capacity);
+        }
+    }
+
+    private CircularLogBuffer(LogStorage storage, Mode mode) {
+        this.storage = storage;
+        this.mode = mode;
+    }
+
+    // Буфер без блокировок для логирования из нескольких потоков одновременно
+    public static CircularLogBuffer lockFree(int capacity) {
+        return new CircularLogBuffer(capacity, Mode.LOCK_FREE);
+    }
+
+    /* Компактный буфер для миллионов записей: сообщения хранятся в UTF-8 в общем
+    массиве байтов размером arenaBytes. Если сообщения не помещаются в массив,
+    самые старые записи вытесняются раньше, чем буфер заполнится по числу записей.
+    */
+    public static CircularLogBuffer compact(int capacity, int arenaBytes) {
+        if (capacity <= 0 || arenaBytes <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        return new CircularLogBuffer(new CompactLogStorage(capacity, arenaBytes), Mode.COMPACT);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /* Подключает архив: вытесненные записи дописываются в сегменты на диске,
+    а get() и forEachInHistory() читают оттуда записи старше кольцевого буфера.
+    */
+    public void attachArchive(LogArchive archive) {
+        this.archive = archive;
+        if (archive != null) {
+            archive.startAt(storage.firstSequence());
+        }
+        storage.setEvictionListener(archive == null ? null : archive::append);
+    }
+
+    public LogArchive getArchive() {
+        return archive;
+    }
+
+    // Добавление записи (вытесняет старую, если буфер полон); возвращает её номер
+    public long append(LogLevel logLevel, String message) {
+        return storage.append(logLevel, message, LogClock.now());
+    }
+
+    /* Добавление с заранее взятой отметкой времени (см. LogClock).
+    Если отметка меньше, чем у предыдущей записи, в буфере она выравнивается по ней.
+    */
+    public long append(LogLevel logLevel, String message, long timestamp) {
+        return storage.append(logLevel, message, timestamp);
+    }
+
+    public int capacity() {
+        return storage.capacity();
+    }
+
+    // Номер, который получит следующая запись
+    public long nextSequence() {
+        return storage.nextSequence();
+    }
+
+    // Номер самой старой записи, которая ещё может находиться в буфере
+    public long firstSequence() {
+        return storage.firstSequence();
+    }
+
+    // Сколько записей вытеснено из кольцевого буфера за всё время (номера идут с нуля)
+    public long getEvictedCount() {
+        return storage.firstSequence();
+    }
+
+    // Сколько раз писатели ждали блокировку (или повторяли CAS в режиме LOCK_FREE)
+    public long getContentionCount() {
+        return storage.contentionCount();
+    }
+
+    // Суммарное время ожидания блокировки писателями
+    public long getContentionNanos() {
+        return storage.contentionNanos();
+    }
+
+    // Сколько записей в режиме LOCK_FREE обогнал писатель следующего круга; они сразу отданы архиву
+    public long getOvertakenCount() {
+        return storage.overtakenCount();
+    }
+
+    // Номер самой старой доступной записи с учётом архива
+    public long historyFirstSequence() {
+        LogArchive currentArchive = archive;
+        if (currentArchive != null) {
+            long archived = currentArchive.firstSequence();
+            if (archived >= 0) {
+                return Math.min(archived, firstSequence());
             }
-        } finally {
-            lock.writeLock().unlock();
         }
+        return firstSequence();
+    }
+
+    // Запись по номеру (из архива, если она уже вытеснена); null, если её нет
+    public LogEntry get(long sequence) {
+        if (sequence < 0) {
+            return null;
+        }
+        LogEntry entry = storage.get(sequence);
+        LogArchive currentArchive = archive;
+        if (entry == null && currentArchive != null && sequence < storage.firstSequence()) {
+            entry = currentArchive.get(sequence);
+        }
+        return entry;
+    }
+
+    /* Обход по номерам по всей истории: сначала архив на диске, затем кольцевой буфер.
+    С диска читаются только записи из запрошенного диапазона.
+    Возвращает число переданных в consumer записей.
+    */
+    public int forEachInHistory(long fromSequence, int count, Consumer<? super LogEntry> consumer) {
+        int visited = 0;
+        long sequence = Math.max(fromSequence, historyFirstSequence());
+        LogArchive currentArchive = archive;
+        long ringFirst = storage.firstSequence();
+        if (currentArchive != null && sequence < ringFirst) {
+            long[] last = {sequence - 1};
+            visited = currentArchive.forEach(sequence, count, entry -> {
+                consumer.accept(entry);
+                last[0] = entry.getSequence();
+            });
+            sequence = Math.max(last[0] + 1, ringFirst);
+        }
+        long end = storage.nextSequence();
+        for (; sequence < end && visited < count; sequence++) {
+            LogEntry entry = storage.get(sequence);
+            if (entry != null) {
+                consumer.accept(entry);
+                visited++;
+            }
+        }
+        return visited;
     }
 
     // Текущий размер буфера
     public int size() {
-        lock.readLock().lock();
-        try {
-            return size;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return storage.size();
     }
 
     // Получение сегмента записей (от startFrom до startFrom + count)
     public Iterable<LogEntry> range(int startFrom, int count) {
-        lock.readLock().lock();
-        try {
-            if (startFrom < 0 || startFrom >= size || count <= 0) {
-                return Collections.emptyList();
+        return storage.range(startFrom, count);
+    }
+
+    /* Обход записей прямо в слотах буфера, без копирования в массив.
+    Записи, вытесненные писателями во время обхода, пропускаются;
+    возвращается их количество.
+    */
+    public int forEach(int startFrom, int count, Consumer<? super LogEntry> consumer) {
+        long end = storage.nextSequence();
+        long first = storage.firstSequence();
+        if (startFrom < 0 || count <= 0 || first + startFrom >= end) {
+            return 0;
+        }
+        long from = first + startFrom;
+        long to = Math.min(end, from + count);
+        int overwritten = 0;
+        for (long sequence = from; sequence < to; sequence++) {
+            LogEntry entry = storage.get(sequence);
+            if (entry != null) {
+                consumer.accept(entry);
+            } else if (sequence < firstSequence()) {
+                overwritten++;
             }
-            int endIndex = Math.min(startFrom + count, size);
-            int actualCount = endIndex - startFrom;
-            LogEntry[] result = new LogEntry[actualCount];
-            for (int i = 0; i < actualCount; i++) {
-                result[i] = buffer[(head + startFrom + i) % capacity];
+        }
+        return overwritten;
+    }
+
+    /* Новейшие count записей с уровнем не ниже minLevel, в порядке добавления.
+    Записи берутся из индекса по уровням (в компактном режиме — из столбца уровней),
+    без создания объектов для остальных записей.
+    Возвращает число переданных в consumer записей.
+    */
+    public int forEachNewest(LogLevel minLevel, int count, Consumer<? super LogEntry> consumer) {
+        if (count <= 0) {
+            return 0;
+        }
+        long[] sequences = new long[Math.min(count, storage.capacity())];
+        int found = storage.newest(minLevel, sequences);
+        int visited = 0;
+        for (int i = 0; i < found; i++) {
+            LogEntry entry = storage.get(sequences[i]);
+            if (entry != null) {
+                consumer.accept(entry);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /* Записи буфера с отметкой времени в полуинтервале [fromTimestamp, toTimestamp), по порядку.
+    Записи упорядочены по времени, поэтому первая из них ищется двоичным поиском по номерам,
+    а не перебором всего буфера. Возвращает число переданных в consumer записей.
+    */
+    public int forEachByTime(long fromTimestamp, long toTimestamp, Consumer<? super LogEntry> consumer) {
+        long end = storage.nextSequence();
+        int visited = 0;
+        for (long sequence = firstAtOrAfter(fromTimestamp); sequence < end; sequence++) {
+            LogEntry entry = storage.get(sequence);
+            if (entry == null) {
+                continue; // Вытеснена или ещё не опубликована
+            }
+            if (entry.getTimestamp() >= toTimestamp) {
+                break;
+            }
+            if (entry.getTimestamp() >= fromTimestamp) {
+                consumer.accept(entry);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    // Копия записей с отметкой времени в [fromTimestamp, toTimestamp)
+    public Iterable<LogEntry> rangeByTime(long fromTimestamp, long toTimestamp) {
+        List<LogEntry> result = new ArrayList<>();
+        forEachByTime(fromTimestamp, toTimestamp, result::add);
+        return result;
+    }
+
+    // Наименьший номер записи с отметкой не меньше timestamp
+    private long firstAtOrAfter(long timestamp) {
+        long low = storage.firstSequence();
+        long high = storage.nextSequence();
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            long value = storage.timestamp(middle);
+            if (value == Long.MIN_VALUE) {
+                low = middle + 1; // Вытеснена во время поиска: она старше искомой
+            } else if (value < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
             }
-            // Возвращаем Iterable на основе массива
-            return () -> Arrays.stream(result).iterator();
-        } finally {
-            lock.readLock().unlock();
         }
+        return Math.max(low, storage.firstSequence());
+    }
+
+    // Обход всех записей без копирования
+    @Override
+    public void forEach(Consumer<? super LogEntry> consumer) {
+        forEach(0, storage.capacity(), consumer);
     }
 
     // Получение всех записей
@@ -80,4 +298,4 @@ public class CircularLogBuffer implements Iterable<LogEntry> {
     public Iterator<LogEntry> iterator() {
         return all().iterator();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,283 @@
+package log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/* Компактное хранилище (структура массивов) для больших буферов.
+Для каждого слота хранятся только примитивы: уровень, время, смещение и длина сообщения,
+а также слот предыдущей записи того же уровня — цепочки по уровням заменяют LevelIndex,
+которому понадобилось бы по кольцу номеров на каждый уровень (48 байт на слот).
+Сами сообщения лежат в UTF-8 в общем кольцевом массиве байтов. Запись вытесняется,
+когда её слот или её байты нужны новой записи. LogEntry создаётся только при чтении.
+*/
+final class CompactLogStorage implements LogStorage {
+    private static final int DEFAULT_BYTES_PER_ENTRY = 64;
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final int capacity;
+    private final byte[] levels;
+    private final long[] timestamps;
+    private final long[] offsets; // Абсолютное смещение сообщения в арене
+    private final int[] lengths;
+    private final int[] previousOfLevel; // Слот предыдущей записи того же уровня или -1
+    private final int[] lastOfLevel = new int[LEVELS.length]; // Слот новейшей записи уровня или -1
+    private final byte[] arena;
+    private long arenaEnd; // Сколько байтов записано в арену за всё время
+    private int head; // Индекс слота самой старой записи
+    private int size;
+    private long appended;
+    private final LockContention contention = new LockContention();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile EvictionListener evictionListener;
+
+    CompactLogStorage(int capacity, int arenaBytes) {
+        this.capacity = capacity;
+        this.levels = new byte[capacity];
+        this.timestamps = new long[capacity];
+        this.offsets = new long[capacity];
+        this.lengths = new int[capacity];
+        this.arena = new byte[arenaBytes];
+        this.previousOfLevel = new int[capacity];
+        Arrays.fill(lastOfLevel, -1);
+    }
+
+    static int defaultArenaBytes(int capacity) {
+        return (int) Math.min((long) capacity * DEFAULT_BYTES_PER_ENTRY, Integer.MAX_VALUE - 8);
+    }
+
+    @Override
+    public long append(LogLevel logLevel, String message, long timestamp) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        int length = utf8Prefix(bytes, arena.length); // Слишком длинное сообщение обрезается
+        contention.acquire(lock.writeLock());
+        try {
+            long newEnd = arenaEnd + length;
+            // Вытесняем старые записи, пока не освободится слот и место в арене
+            EvictionListener listener = evictionListener;
+            while (size > 0 && (size == capacity || offsets[head] < newEnd - arena.length)) {
+                if (listener != null) {
+                    listener.onEvicted(decode(head, appended - size)); // Сообщение декодируется только для архива
+                }
+                head = (head + 1) % capacity;
+                size--;
+            }
+            int index = (head + size) % capacity;
+            levels[index] = (byte) logLevel.level();
+            previousOfLevel[index] = lastOfLevel[logLevel.level()];
+            lastOfLevel[logLevel.level()] = index;
+            // Писатели, ждавшие блокировку, не должны нарушать порядок по времени
+            timestamps[index] = size > 0
+                    ? Math.max(timestamp, timestamps[(index + capacity - 1) % capacity])
+                    : timestamp;
+            offsets[index] = arenaEnd;
+            lengths[index] = length;
+            copyToArena(bytes, length, arenaEnd);
+            arenaEnd = newEnd;
+            size++;
+            return appended++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Длина не больше max байтов, на которой не обрывается ни один символ UTF-8
+    static int utf8Prefix(byte[] bytes, int max) {
+        if (bytes.length <= max) {
+            return bytes.length;
+        }
+        int length = max;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--; // Первый отброшенный байт — продолжение символа: отбрасываем и его начало
+        }
+        return length;
+    }
+
+    private void copyToArena(byte[] bytes, int length, long position) {
+        int start = (int) (position % arena.length);
+        int first = Math.min(length, arena.length - start);
+        System.arraycopy(bytes, 0, arena, start, first);
+        System.arraycopy(bytes, first, arena, 0, length - first);
+    }
+
+    // Вызывается под блокировкой (чтения или записи)
+    private LogEntry decode(int index, long sequence) {
+        int length = lengths[index];
+        int start = (int) (offsets[index] % arena.length);
+        String message;
+        if (start + length <= arena.length) {
+            message = new String(arena, start, length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            int first = arena.length - start;
+            System.arraycopy(arena, start, bytes, 0, first);
+            System.arraycopy(arena, 0, bytes, first, length - first);
+            message = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new LogEntry(LEVELS[levels[index]], message, sequence, timestamps[index]);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterable<LogEntry> range(int startFrom, int count) {
+        lock.readLock().lock();
+        try {
+            if (startFrom < 0 || startFrom >= size || count <= 0) {
+                return Collections.emptyList();
+            }
+            int actualCount = Math.min(startFrom + count, size) - startFrom;
+            long first = appended - size;
+            LogEntry[] result = new LogEntry[actualCount];
+            for (int i = 0; i < actualCount; i++) {
+                result[i] = decode((head + startFrom + i) % capacity, first + startFrom + i);
+            }
+            return () -> Arrays.stream(result).iterator();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long nextSequence() {
+        lock.readLock().lock();
+        try {
+            return appended;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        evictionListener = listener;
+    }
+
+    @Override
+    public long firstSequence() {
+        lock.readLock().lock();
+        try {
+            return appended - size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Слияние цепочек уровней не ниже minLevel от новых записей к старым: стоимость
+    пропорциональна числу найденных записей, а не ёмкости, как у просмотра столбца уровней.
+    */
+    @Override
+    public int newest(LogLevel minLevel, long[] out) {
+        lock.readLock().lock();
+        try {
+            long first = appended - size;
+            long[] heads = new long[LEVELS.length]; // Номер текущей записи цепочки или -1
+            for (int l = minLevel.level(); l < LEVELS.length; l++) {
+                heads[l] = liveSequence(lastOfLevel[l], l, appended, first);
+            }
+            int found = 0;
+            while (found < out.length) {
+                int best = -1;
+                for (int l = minLevel.level(); l < LEVELS.length; l++) {
+                    if (heads[l] >= 0 && (best < 0 || heads[l] > heads[best])) {
+                        best = l;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                long sequence = heads[best];
+                out[found++] = sequence;
+                heads[best] = liveSequence(previousOfLevel[slotOf(sequence, first)], best, sequence, first);
+            }
+            // Номера собраны от новых к старым
+            for (int i = 0, j = found - 1; i < j; i++, j--) {
+                long swap = out[i];
+                out[i] = out[j];
+                out[j] = swap;
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int slotOf(long sequence, long first) {
+        return (int) ((head + (sequence - first)) % capacity);
+    }
+
+    /* Номер записи в слоте slot, если это живая запись уровня level старше before, иначе -1.
+    Ссылка на слот, уже занятый более новой записью, значит, что цепочка дальше вытеснена.
+    */
+    private long liveSequence(int slot, int level, long before, long first) {
+        if (slot < 0 || levels[slot] != level) {
+            return -1;
+        }
+        int position = (slot - head + capacity) % capacity;
+        if (position >= size) {
+            return -1;
+        }
+        long sequence = first + position;
+        return sequence < before ? sequence : -1;
+    }
+
+    @Override
+    public long contentionCount() {
+        return contention.count();
+    }
+
+    @Override
+    public long contentionNanos() {
+        return contention.waitNanos();
+    }
+
+    @Override
+    public long overtakenCount() {
+        return 0; // Под блокировкой писатели не обгоняют друг друга
+    }
+
+    @Override
+    public long timestamp(long sequence) {
+        lock.readLock().lock();
+        try {
+            long first = appended - size;
+            if (sequence < first) {
+                return Long.MIN_VALUE;
+            }
+            if (sequence >= appended) {
+                return Long.MAX_VALUE;
+            }
+            return timestamps[(int) ((head + (sequence - first)) % capacity)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public LogEntry get(long sequence) {
+        lock.readLock().lock();
+        try {
+            long first = appended - size;
+            if (sequence < first || sequence >= appended) {
+                return null;
+            }
+            return decode((int) ((head + (sequence - first)) % capacity), sequence);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package log;
+
+// Получает записи, которые хранилище вытесняет из кольцевого буфера
+interface EvictionListener {
+    void onEvicted(LogEntry entry);
+}
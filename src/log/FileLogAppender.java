@@ -0,0 +1,301 @@
+package log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Асинхронная запись лога в файл.
+Поток, который пишет в лог, только кладёт запись в ограниченную очередь.
+Фоновый поток забирает записи пачками, кодирует их в прямой буфер и пишет
+через FileChannel. Файл переименовывается в file.1, file.2, ... когда
+превышает заданный размер или когда истекает интервал ротации; хранятся только
+maxRolledFiles последних таких файлов. Ошибки ввода-вывода не останавливают
+фоновый поток: он продолжает писать в исходный файл, пока appender не закрыт.
+*/
+public class FileLogAppender implements LogAppender, Closeable {
+    // Что делать, если очередь на запись заполнена
+    public enum OverflowPolicy {
+        BLOCK, // Ждать, пока фоновый поток освободит место
+        DROP, // Отбросить новую запись
+        SAMPLE // При заполнении очереди на 3/4 сохранять только часть записей ниже Warning
+    }
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    public static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+    public static final Duration DEFAULT_ROLL_INTERVAL = Duration.ofHours(24);
+    public static final int DEFAULT_MAX_ROLLED_FILES = 10;
+
+    private static final int BATCH_SIZE = 512; // Сколько записей забирается из очереди за раз
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long POLL_TIMEOUT_MS = 200;
+    private static final int SAMPLE_RATE = 10; // Под нагрузкой сохраняется каждая 10-я запись ниже Warning
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final long rollIntervalNanos;
+    private final int maxRolledFiles;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<LogEntry> queue;
+    private final int sampleThreshold;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean closed;
+    private volatile long written;
+
+    // Состояние фонового потока
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder();
+    private final List<LogEntry> batch = new ArrayList<>(BATCH_SIZE);
+    private FileChannel channel;
+    private long fileBytes;
+    private long fileOpenedAt;
+    private int rolledFiles;
+
+    public FileLogAppender(Path file, OverflowPolicy overflowPolicy) throws IOException {
+        this(file, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_FILE_BYTES, DEFAULT_ROLL_INTERVAL,
+                DEFAULT_MAX_ROLLED_FILES, overflowPolicy);
+    }
+
+    // maxRolledFiles = 0 означает, что старые файлы не удаляются
+    public FileLogAppender(Path file, int queueCapacity, long maxFileBytes, Duration rollInterval,
+                           int maxRolledFiles, OverflowPolicy overflowPolicy) throws IOException {
+        if (queueCapacity <= 0 || maxFileBytes <= 0 || rollInterval.isNegative() || rollInterval.isZero()) {
+            throw new IllegalArgumentException("Queue capacity, file size and roll interval must be positive");
+        }
+        if (maxRolledFiles < 0) {
+            throw new IllegalArgumentException("Rolled file limit must not be negative");
+        }
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.rollIntervalNanos = rollInterval.toNanos();
+        this.maxRolledFiles = maxRolledFiles;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sampleThreshold = queueCapacity - queueCapacity / 4;
+        openChannel();
+
+        writerThread = new Thread(this::runWriter, "log_file_writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void append(LogEntry entry) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            putBlocking(entry);
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.SAMPLE
+                && queue.size() >= sampleThreshold
+                && entry.getLevel().level() < LogLevel.Warning.level()
+                && sampleCounter.incrementAndGet() % SAMPLE_RATE != 0) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (!queue.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void putBlocking(LogEntry entry) {
+        try {
+            while (!queue.offer(entry, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    // Сколько записей не попало в файл из-за переполнения очереди или ошибок записи
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Дописывает всё, что осталось в очереди, и закрывает файл
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Поток не завершается до close(): иначе писатели с политикой BLOCK ждали бы вечно
+    private void runWriter() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                LogEntry first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    writeBatch();
+                    batch.clear();
+                }
+                if (fileBytes > 0 && System.nanoTime() - fileOpenedAt >= rollIntervalNanos) {
+                    roll(); // Буфер уже сброшен в файл
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeChannel();
+        }
+    }
+
+    private void writeBatch() {
+        int flushed = 0; // Записи пакета, уже целиком сброшенные в файл
+        try {
+            if (channel == null || !channel.isOpen()) {
+                openChannel(); // Прошлая попытка открыть файл после ротации не удалась
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                encode(batch.get(i));
+                if (fileBytes + byteBuffer.position() >= maxFileBytes) {
+                    flushBuffer();
+                    flushed = i + 1;
+                    roll();
+                }
+            }
+            flushBuffer();
+            flushed = batch.size();
+        } catch (IOException e) {
+            System.err.println("Failed to write log file " + file + ": " + e.getMessage());
+            dropped.addAndGet(batch.size() - flushed);
+            byteBuffer.clear();
+        } finally {
+            written += flushed;
+        }
+    }
+
+    private void encode(LogEntry entry) throws IOException {
+        line.setLength(0);
+        line.append('[').append(entry.getLevel().name()).append("] ")
+                .append(entry.getMessage()).append(System.lineSeparator());
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, byteBuffer, true);
+            if (!result.isOverflow()) {
+                break;
+            }
+            flushBuffer();
+        }
+        encoder.reset();
+    }
+
+    private void flushBuffer() throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            fileBytes += channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+
+    /* Переименовывает файл и открывает новый. Ошибка не прерывает запись: если
+    переименовать не удалось, открывается прежний файл, а следующая попытка будет,
+    когда он вырастет ещё на maxFileBytes или снова истечёт интервал ротации.
+    */
+    private void roll() {
+        try {
+            channel.close();
+            try {
+                Path target;
+                do {
+                    target = file.resolveSibling(file.getFileName() + "." + (++rolledFiles));
+                } while (Files.exists(target));
+                Files.move(file, target);
+            } finally {
+                openChannel();
+            }
+            if (maxRolledFiles > 0) {
+                deleteOldRolledFiles();
+            }
+        } catch (IOException e) {
+            System.err.println("Log file rolling failed: " + e.getMessage());
+            fileBytes = 0;
+            fileOpenedAt = System.nanoTime();
+        }
+    }
+
+    // Оставляет maxRolledFiles файлов file.N с наибольшими номерами, в том числе от прошлых запусков
+    private void deleteOldRolledFiles() throws IOException {
+        String prefix = file.getFileName() + ".";
+        List<Integer> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(file.toAbsolutePath().getParent(),
+                Files::isRegularFile)) {
+            for (Path rolled : files) {
+                String name = rolled.getFileName().toString();
+                if (name.startsWith(prefix)) {
+                    try {
+                        numbers.add(Integer.parseInt(name.substring(prefix.length())));
+                    } catch (NumberFormatException e) {
+                        // Чужой файл с похожим именем
+                    }
+                }
+            }
+        }
+        numbers.sort(null);
+        for (int i = 0; i < numbers.size() - maxRolledFiles; i++) {
+            Files.deleteIfExists(file.resolveSibling(prefix + numbers.get(i)));
+        }
+    }
+
+    private void openChannel() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+        fileOpenedAt = System.nanoTime();
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null && channel.isOpen()) {
+                flushBuffer();
+                channel.force(false);
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close log file " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package log;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Вторичный индекс по уровням: для каждого LogLevel хранится кольцо номеров
+последних записей этого уровня. Кольцо каждого уровня вмещает столько же номеров,
+сколько записей вмещает буфер, поэтому в нём всегда есть все живые записи уровня.
+Вытесненные номера не удаляются явно: при чтении номер проверяется по буферу,
+а номер старше первого живого означает, что ниже по кольцу живых записей нет.
+Индекс не использует блокировок; его используют режимы LOCKING и LOCK_FREE.
+В режиме COMPACT он занимал бы больше места, чем сами записи, поэтому там
+записи одного уровня связаны в цепочку прямо в хранилище (см. CompactLogStorage).
+*/
+final class LevelIndex {
+    private static final long EMPTY = -1;
+    // Сколько верхних слотов уровня может быть ещё не заполнено одновременно пишущими потоками
+    private static final int MAX_IN_FLIGHT = 64;
+
+    private final int capacity;
+    private final AtomicLong[] counters;
+    private final AtomicLongArray[] sequences;
+
+    LevelIndex(int capacity) {
+        this.capacity = capacity;
+        int levels = LogLevel.values().length;
+        this.counters = new AtomicLong[levels];
+        this.sequences = new AtomicLongArray[levels];
+        for (int i = 0; i < levels; i++) {
+            counters[i] = new AtomicLong();
+            long[] initial = new long[capacity];
+            Arrays.fill(initial, EMPTY);
+            sequences[i] = new AtomicLongArray(initial);
+        }
+    }
+
+    void add(LogLevel level, long sequence) {
+        int l = level.level();
+        long slot = counters[l].getAndIncrement();
+        sequences[l].set((int) (slot % capacity), sequence);
+    }
+
+    /* Заполняет out номерами новейших записей с уровнем не ниже minLevel,
+    которые не старше firstSequence, в порядке возрастания. Возвращает их число.
+    Номера могут указывать на записи, вытесненные после вызова, поэтому
+    читатель всё равно проверяет их по буферу.
+    */
+    int newest(LogLevel minLevel, long firstSequence, long[] out) {
+        int levels = counters.length;
+        long[] positions = new long[levels]; // Текущий слот обхода для каждого уровня (сверху вниз)
+        long[] bottoms = new long[levels];
+        long[] heads = new long[levels]; // Номер записи в текущем слоте или EMPTY, если уровень исчерпан
+        for (int l = minLevel.level(); l < levels; l++) {
+            long top = counters[l].get();
+            positions[l] = top;
+            bottoms[l] = Math.max(0, top - capacity);
+            heads[l] = advance(l, positions, bottoms, firstSequence);
+        }
+        int found = 0;
+        while (found < out.length) {
+            int best = -1;
+            for (int l = minLevel.level(); l < levels; l++) {
+                if (heads[l] != EMPTY && (best < 0 || heads[l] > heads[best])) {
+                    best = l;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            out[found++] = heads[best];
+            heads[best] = advance(best, positions, bottoms, firstSequence);
+        }
+        // Параллельные писатели могут заполнить слоты уровня не по порядку номеров
+        Arrays.sort(out, 0, found);
+        return found;
+    }
+
+    // Следующий сверху живой номер уровня l или EMPTY
+    private long advance(int l, long[] positions, long[] bottoms, long firstSequence) {
+        long top = counters[l].get();
+        while (positions[l] > bottoms[l]) {
+            long position = --positions[l];
+            long sequence = sequences[l].get((int) (position % capacity));
+            if (sequence >= firstSequence) {
+                return sequence;
+            }
+            if (position < top - MAX_IN_FLIGHT) {
+                break; // Слот заполнен и уже вытеснен: всё ниже ещё старше
+            }
+        }
+        return EMPTY;
+    }
+}
@@ -0,0 +1,34 @@
+package log;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+// Счётчики конкуренции хранилища: ожидания блокировки или повторы CAS
+final class LockContention {
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    // Захват блокировки; время считается только если она была занята
+    void acquire(Lock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        waitNanos.add(System.nanoTime() - start);
+        contended.increment();
+    }
+
+    // Повтор операции без блокировок (неудачный CAS или ожидание слота)
+    void retry() {
+        contended.increment();
+    }
+
+    long count() {
+        return contended.sum();
+    }
+
+    long waitNanos() {
+        return waitNanos.sum();
+    }
+}
@@ -0,0 +1,203 @@
+package log;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Кольцевой буфер без блокировок для нескольких писателей и читателей.
+Писатель одним CAS получает номер последовательности вместе с отметкой времени,
+не меньшей, чем у предыдущего номера (поэтому время растёт вместе с номером и
+по нему работает двоичный поиск), и записывает запись в слот (номер % ёмкость). Для каждого слота хранится номер опубликованной
+в нём записи: отрицательное значение -(seq + 1) означает, что писатель seq
+сейчас заполняет слот. Читатель проверяет номер до и после чтения ссылки и
+пропускает слот, если его успели перезаписать, поэтому читатели никогда
+не задерживают писателей. Писатель, которого между получением номера и захватом
+слота обогнал писатель следующего круга, в буфер не пишет: его запись сразу
+уходит получателю вытесненных и учитывается в overtakenCount.
+*/
+final class LockFreeLogStorage implements LogStorage {
+    private static final long EMPTY = Long.MIN_VALUE; // Слот ещё ни разу не заполнялся
+
+    private final int capacity;
+    private final AtomicReferenceArray<LogEntry> entries;
+    private final AtomicLongArray published; // Номер записи в слоте или признак записи
+    private final AtomicReference<Claim> lastClaim = new AtomicReference<>(new Claim(-1, Long.MIN_VALUE));
+    private final LevelIndex levelIndex;
+    private volatile EvictionListener evictionListener;
+    private final LockContention contention = new LockContention();
+    private final LongAdder overtaken = new LongAdder();
+
+    // Последний выданный номер и его отметка времени
+    private static final class Claim {
+        final long sequence;
+        final long timestamp;
+
+        Claim(long sequence, long timestamp) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+        }
+    }
+
+    LockFreeLogStorage(int capacity) {
+        this.capacity = capacity;
+        this.entries = new AtomicReferenceArray<>(capacity);
+        long[] initial = new long[capacity];
+        Arrays.fill(initial, EMPTY);
+        this.published = new AtomicLongArray(initial);
+        this.levelIndex = new LevelIndex(capacity);
+    }
+
+    @Override
+    public long append(LogLevel logLevel, String message, long timestamp) {
+        Claim claimed = claimSequence(timestamp);
+        long sequence = claimed.sequence;
+        LogEntry entry = new LogEntry(logLevel, message, sequence, claimed.timestamp);
+        int index = (int) (sequence % capacity);
+        EvictionListener listener = evictionListener;
+        if (!claim(index, sequence)) {
+            // Слот уже занят более новой записью: наша вытеснена, не попав в буфер.
+            // Архив её примет, если ещё не записал пропуск на её месте как потерю
+            overtaken.increment();
+            if (listener != null) {
+                listener.onEvicted(entry);
+            }
+            return sequence;
+        }
+        levelIndex.add(logLevel, sequence); // Только записи, которые действительно есть в буфере
+        LogEntry evicted = entries.getAndSet(index, entry);
+        published.set(index, sequence);
+        if (evicted != null && listener != null) {
+            listener.onEvicted(evicted); // Записи разных слотов могут прийти не по порядку
+        }
+        return sequence;
+    }
+
+    private Claim claimSequence(long timestamp) {
+        while (true) {
+            Claim previous = lastClaim.get();
+            Claim next = new Claim(previous.sequence + 1, Math.max(timestamp, previous.timestamp));
+            if (lastClaim.compareAndSet(previous, next)) {
+                return next;
+            }
+            contention.retry();
+        }
+    }
+
+    // Захват слота: ждём только писателя предыдущего круга, если он ещё не закончил
+    private boolean claim(int index, long sequence) {
+        int spins = 0;
+        while (true) {
+            long current = published.get(index);
+            if (current != EMPTY && current < 0) {
+                long owner = -current - 1;
+                if (owner > sequence) {
+                    return false;
+                }
+                contention.retry();
+                if (++spins % 64 == 0) {
+                    Thread.yield();
+                } else {
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            if (current != EMPTY && current > sequence) {
+                return false;
+            }
+            if (published.compareAndSet(index, current, -sequence - 1)) {
+                return true;
+            }
+            contention.retry();
+        }
+    }
+
+    // Чтение записи с номером sequence; null, если слот перезаписан или ещё не опубликован
+    @Override
+    public LogEntry get(long sequence) {
+        int index = (int) (sequence % capacity);
+        if (published.get(index) != sequence) {
+            return null;
+        }
+        LogEntry entry = entries.get(index);
+        return published.get(index) == sequence ? entry : null;
+    }
+
+    @Override
+    public long contentionCount() {
+        return contention.count();
+    }
+
+    @Override
+    public long contentionNanos() {
+        return 0;
+    }
+
+    @Override
+    public long overtakenCount() {
+        return overtaken.sum();
+    }
+
+    @Override
+    public long timestamp(long sequence) {
+        LogEntry entry = get(sequence);
+        if (entry != null) {
+            return entry.getTimestamp();
+        }
+        return sequence < firstSequence() ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long nextSequence() {
+        return lastClaim.get().sequence + 1;
+    }
+
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        evictionListener = listener;
+    }
+
+    @Override
+    public long firstSequence() {
+        return Math.max(0, nextSequence() - capacity);
+    }
+
+    @Override
+    public int newest(LogLevel minLevel, long[] out) {
+        return levelIndex.newest(minLevel, firstSequence(), out);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(nextSequence(), capacity);
+    }
+
+    @Override
+    public Iterable<LogEntry> range(int startFrom, int count) {
+        long end = nextSequence();
+        long first = Math.max(0, end - capacity);
+        long available = end - first;
+        if (startFrom < 0 || startFrom >= available || count <= 0) {
+            return Collections.emptyList();
+        }
+        long from = first + startFrom;
+        int actualCount = (int) Math.min(count, end - from);
+        LogEntry[] result = new LogEntry[actualCount];
+        int found = 0;
+        for (int i = 0; i < actualCount; i++) {
+            LogEntry entry = get(from + i);
+            if (entry != null) {
+                result[found++] = entry;
+            }
+        }
+        int resultSize = found;
+        return () -> Arrays.stream(result, 0, resultSize).iterator();
+    }
+}
@@ -0,0 +1,167 @@
+package log;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Хранилище с одной блокировкой чтения/записи на все операции
+final class LockingLogStorage implements LogStorage {
+    private final LogEntry[] buffer; // Массив для хранения записей
+    private final int capacity; // Максимальная ёмкость
+    private int head; // Индекс начала (где хранится самая старая запись)
+    private int size; // Текущее количество записей
+    private long appended; // Сколько записей добавлено за всё время
+    private long lastTimestamp = Long.MIN_VALUE;
+    private final LockContention contention = new LockContention();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Для синхронизации
+    private final LevelIndex levelIndex;
+    private volatile EvictionListener evictionListener;
+
+    LockingLogStorage(int capacity) {
+        this.capacity = capacity;
+        this.buffer = new LogEntry[capacity];
+        this.head = 0;
+        this.size = 0;
+        this.levelIndex = new LevelIndex(capacity);
+    }
+
+    // Добавление записи (вытесняет старую, если буфер полон)
+    @Override
+    public long append(LogLevel logLevel, String message, long timestamp) {
+        contention.acquire(lock.writeLock());
+        try {
+            long sequence = appended;
+            // Писатели, ждавшие блокировку, не должны нарушать порядок по времени
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+            LogEntry entry = new LogEntry(logLevel, message, sequence, lastTimestamp);
+            int index = (head + size) % capacity;
+            EvictionListener listener = evictionListener;
+            if (size == capacity && listener != null) {
+                listener.onEvicted(buffer[index]);
+            }
+            buffer[index] = entry;
+            levelIndex.add(logLevel, sequence);
+            appended++;
+            if (size < capacity) {
+                size++;
+            } else {
+                head = (head + 1) % capacity; // Сдвигаем начало, вытесняя старую запись
+            }
+            return sequence;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterable<LogEntry> range(int startFrom, int count) {
+        lock.readLock().lock();
+        try {
+            if (startFrom < 0 || startFrom >= size || count <= 0) {
+                return Collections.emptyList();
+            }
+            int endIndex = Math.min(startFrom + count, size);
+            int actualCount = endIndex - startFrom;
+            LogEntry[] result = new LogEntry[actualCount];
+            for (int i = 0; i < actualCount; i++) {
+                result[i] = buffer[(head + startFrom + i) % capacity];
+            }
+            // Возвращаем Iterable на основе массива
+            return () -> Arrays.stream(result).iterator();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long nextSequence() {
+        lock.readLock().lock();
+        try {
+            return appended;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        evictionListener = listener;
+    }
+
+    @Override
+    public long firstSequence() {
+        lock.readLock().lock();
+        try {
+            return appended - size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int newest(LogLevel minLevel, long[] out) {
+        return levelIndex.newest(minLevel, firstSequence(), out);
+    }
+
+    @Override
+    public long contentionCount() {
+        return contention.count();
+    }
+
+    @Override
+    public long contentionNanos() {
+        return contention.waitNanos();
+    }
+
+    @Override
+    public long overtakenCount() {
+        return 0; // Под блокировкой писатели не обгоняют друг друга
+    }
+
+    @Override
+    public long timestamp(long sequence) {
+        lock.readLock().lock();
+        try {
+            long first = appended - size;
+            if (sequence < first) {
+                return Long.MIN_VALUE;
+            }
+            if (sequence >= appended) {
+                return Long.MAX_VALUE;
+            }
+            return buffer[(int) ((head + (sequence - first)) % capacity)].getTimestamp();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Блокировка берётся на одну запись, чтобы обход не задерживал писателей
+    @Override
+    public LogEntry get(long sequence) {
+        lock.readLock().lock();
+        try {
+            long first = appended - size;
+            if (sequence < first || sequence >= appended) {
+                return null;
+            }
+            return buffer[(int) ((head + (sequence - first)) % capacity)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
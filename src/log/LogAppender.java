@@ -0,0 +1,10 @@
+package log;
+
+/* Получатель каждой записи лога, например файл на диске.
+Вызывается в потоке, который пишет в лог, поэтому реализация должна только
+передать запись дальше и вернуть управление.
+*/
+public interface LogAppender
+{
+    public void append(LogEntry entry);
+}
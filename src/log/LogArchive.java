@@ -0,0 +1,567 @@
+package log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/* Архив вытесненных записей на диске.
+Записи дописываются в сегменты фиксированного размера, отображённые в память
+(segment-N.log). Формат записи: номер (8 байт), время (8 байт), уровень (1 байт),
+длина (4 байта), сообщение в UTF-8. Для каждой INDEX_INTERVAL-й записи в памяти хранится
+разреженный индекс «номер -> сегмент и смещение», поэтому чтение старой записи
+ищет ближайшую точку индекса двоичным поиском и читает с диска только нужные записи.
+append() вызывается под блокировкой буфера в потоке, который пишет в лог, поэтому
+только ставит запись в очередь; сегменты создаёт, заполняет и удаляет фоновый поток.
+Записи из очереди читаются так же, как записи на диске.
+*/
+public class LogArchive implements Closeable {
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_MAX_SEGMENTS = 16; // До 256 МБ на диске
+    private static final int HEADER_BYTES = 8 + 8 + 1 + 4;
+    private static final int INDEX_INTERVAL = 64;
+    private static final int MAX_PENDING = 1024; // Сколько записей ждать, пока заполнится пропуск в номерах
+    private static final int MAX_QUEUED = 1 << 16; // Сверх этого записи, не успевшие на диск, теряются
+    private static final int WRITE_BATCH = 512;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final LogLevel[] LEVELS = LogLevel.values();
+    // Явное освобождение отображения сегмента (см. unmap)
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Log archive segments will be unmapped by GC: " + e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final List<Segment> segments = new ArrayList<>(); // Меняется только фоновым потоком
+    private int firstSegmentNumber; // Номер файла первого сегмента в списке
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Condition queueChanged = lock.writeLock().newCondition();
+
+    // Разреженный индекс
+    private long[] indexSequences = new long[64];
+    private int[] indexSegments = new int[64]; // Номер файла сегмента
+    private int[] indexOffsets = new int[64];
+    private int indexStart;
+    private int indexEnd;
+
+    private long firstSequence = -1;
+    private long nextSequence; // Номер, который ожидается следующим
+    private long recordsSinceIndex = INDEX_INTERVAL;
+    private long archivedCount;
+    private long lostCount;
+    // При нескольких писателях записи могут вытесняться не строго по порядку
+    private final Map<Long, LogEntry> pending = new HashMap<>();
+    // Записи по порядку номеров, которые фоновый поток ещё не записал в сегмент
+    private final ArrayDeque<LogEntry> queued = new ArrayDeque<>();
+    private boolean closed;
+
+    // Состояние фонового потока
+    private final Thread writerThread;
+    private final LogEntry[] batch = new LogEntry[WRITE_BATCH];
+    private final int[] batchOffsets = new int[WRITE_BATCH];
+
+    public LogArchive(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+    }
+
+    // maxSegments = 0 означает, что старые сегменты не удаляются
+    public LogArchive(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        if (segmentBytes <= HEADER_BYTES || maxSegments < 0) {
+            throw new IllegalArgumentException("Segment size must exceed record header");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        deleteOldSegments(); // Номера записей начинаются заново при каждом запуске
+
+        writerThread = new Thread(this::runWriter, "log_archive_writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Номер записи, которая будет вытеснена первой после подключения архива
+    void startAt(long sequence) {
+        lock.writeLock().lock();
+        try {
+            if (firstSequence < 0) {
+                nextSequence = sequence;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void append(LogEntry entry) {
+        lock.writeLock().lock();
+        try {
+            long sequence = entry.getSequence();
+            if (closed) {
+                lostCount++;
+                return;
+            }
+            if (sequence < nextSequence) {
+                return; // Опоздавшая запись из пропуска, который уже учтён как потерянный
+            }
+            if (sequence > nextSequence) {
+                pending.put(sequence, entry);
+                if (pending.size() > MAX_PENDING) {
+                    long skipTo = Long.MAX_VALUE;
+                    for (long key : pending.keySet()) {
+                        skipTo = Math.min(skipTo, key);
+                    }
+                    lostCount += skipTo - nextSequence;
+                    nextSequence = skipTo;
+                    drainPending();
+                }
+                return;
+            }
+            enqueue(entry);
+            drainPending();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void drainPending() {
+        LogEntry next;
+        while ((next = pending.remove(nextSequence)) != null) {
+            enqueue(next);
+        }
+    }
+
+    private void enqueue(LogEntry entry) {
+        nextSequence = entry.getSequence() + 1;
+        if (queued.size() >= MAX_QUEUED) {
+            lostCount++; // Диск не успевает; ждать его под блокировкой буфера нельзя
+            return;
+        }
+        queued.addLast(entry);
+        if (firstSequence < 0) {
+            firstSequence = entry.getSequence();
+        }
+        if (queued.size() == 1) {
+            queueChanged.signalAll();
+        }
+    }
+
+    /* Фоновый поток: забирает пачку из начала очереди, копирует её в сегмент
+    без блокировки (читатели не заходят за segment.limit) и под блокировкой
+    публикует: сдвигает limit, дополняет индекс и убирает записи из очереди.
+    */
+    private void runWriter() {
+        while (true) {
+            int count = 0;
+            lock.writeLock().lock();
+            try {
+                while (queued.isEmpty() && !closed) {
+                    queueChanged.awaitUninterruptibly();
+                }
+                if (queued.isEmpty()) {
+                    return; // Закрыт и всё записано
+                }
+                for (LogEntry entry : queued) {
+                    batch[count++] = entry;
+                    if (count == WRITE_BATCH) {
+                        break;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                spill(count);
+            } catch (IOException e) {
+                System.err.println("Failed to archive log entries: " + e.getMessage());
+                discard(count);
+            }
+            Arrays.fill(batch, 0, count, null);
+        }
+    }
+
+    private void spill(int count) throws IOException {
+        int done = 0;
+        while (done < count) {
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            int offset = segment == null ? segmentBytes : segment.limit;
+            int first = done;
+            for (; done < count; done++) {
+                LogEntry entry = batch[done];
+                byte[] message = entry.getMessage().getBytes(StandardCharsets.UTF_8);
+                int length = CompactLogStorage.utf8Prefix(message, segmentBytes - HEADER_BYTES);
+                if (offset + HEADER_BYTES + length > segmentBytes) {
+                    break;
+                }
+                MappedByteBuffer map = segment.map;
+                map.putLong(offset, entry.getSequence());
+                map.putLong(offset + 8, entry.getTimestamp());
+                map.put(offset + 16, (byte) entry.getLevel().level());
+                map.putInt(offset + 17, length);
+                map.put(offset + HEADER_BYTES, message, 0, length);
+                batchOffsets[done] = offset;
+                offset += HEADER_BYTES + length;
+            }
+            if (done > first) {
+                publish(segment, first, done, offset);
+            }
+            if (done < count) {
+                openSegment();
+            }
+        }
+    }
+
+    private void publish(Segment segment, int from, int to, int limit) {
+        lock.writeLock().lock();
+        try {
+            for (int i = from; i < to; i++) {
+                queued.removeFirst();
+                // Первая запись сегмента всегда попадает в индекс, чтобы поиск не переходил между сегментами
+                if (recordsSinceIndex >= INDEX_INTERVAL || batchOffsets[i] == 0) {
+                    addIndexPoint(batch[i].getSequence(), segment.number, batchOffsets[i]);
+                    recordsSinceIndex = 0;
+                }
+                recordsSinceIndex++;
+            }
+            segment.limit = limit;
+            archivedCount += to - from;
+            if (queued.isEmpty()) {
+                queueChanged.signalAll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Записи, которые не удалось сохранить, уходят из очереди в потерянные
+    private void discard(int count) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count && !queued.isEmpty(); i++) {
+                queued.removeFirst();
+                lostCount++;
+            }
+            if (queued.isEmpty()) {
+                queueChanged.signalAll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Файл создаётся и отображается без блокировки; под ней сегмент только добавляется в список
+    private void openSegment() throws IOException {
+        int number = firstSegmentNumber + segments.size();
+        Path file = directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+        MappedByteBuffer map;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        Segment dropped = null;
+        lock.writeLock().lock();
+        try {
+            segments.add(new Segment(number, file, map));
+            if (maxSegments > 0 && segments.size() > maxSegments) {
+                dropped = removeOldestSegment();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (dropped != null) {
+            release(dropped); // Файл удалит последний читатель, если сегмент ещё читают
+        }
+    }
+
+    private Segment removeOldestSegment() {
+        Segment oldest = segments.remove(0);
+        firstSegmentNumber++;
+        while (indexStart < indexEnd && indexSegments[indexStart] == oldest.number) {
+            indexStart++;
+        }
+        if (indexStart < indexEnd) {
+            firstSequence = indexSequences[indexStart];
+        } else {
+            firstSequence = queued.isEmpty() ? nextSequence : queued.peekFirst().getSequence();
+        }
+        return oldest;
+    }
+
+    /* Снимает одну ссылку на сегмент. Последняя освобождает отображение и удаляет
+    файл: после этого обращение к отображению обрушило бы JVM, поэтому читатели
+    держат ссылку, пока декодируют записи сегмента.
+    */
+    private static void release(Segment segment) {
+        if (segment.pins.decrementAndGet() != 0) {
+            return;
+        }
+        unmap(segment.map);
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            System.err.println("Failed to delete log archive segment " + segment.file + ": " + e.getMessage());
+        }
+    }
+
+    /* Отображение файла освобождается только сборщиком мусора, а пока оно живо,
+    Windows не даёт удалить файл. Поэтому освобождаем его явно, если JDK это позволяет.
+    */
+    private static void unmap(MappedByteBuffer map) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, map);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Failed to unmap log archive segment: " + e);
+        }
+    }
+
+    private void addIndexPoint(long sequence, int segmentNumber, int offset) {
+        if (indexEnd == indexSequences.length) {
+            if (indexStart > indexSequences.length / 2) {
+                // Освобождаем место, занятое удалёнными сегментами
+                int live = indexEnd - indexStart;
+                System.arraycopy(indexSequences, indexStart, indexSequences, 0, live);
+                System.arraycopy(indexSegments, indexStart, indexSegments, 0, live);
+                System.arraycopy(indexOffsets, indexStart, indexOffsets, 0, live);
+                indexStart = 0;
+                indexEnd = live;
+            } else {
+                indexSequences = Arrays.copyOf(indexSequences, indexSequences.length * 2);
+                indexSegments = Arrays.copyOf(indexSegments, indexSegments.length * 2);
+                indexOffsets = Arrays.copyOf(indexOffsets, indexOffsets.length * 2);
+            }
+        }
+        indexSequences[indexEnd] = sequence;
+        indexSegments[indexEnd] = segmentNumber;
+        indexOffsets[indexEnd] = offset;
+        indexEnd++;
+    }
+
+    // Номер самой старой записи в архиве (-1, если архив пуст)
+    public long firstSequence() {
+        lock.readLock().lock();
+        try {
+            return firstSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Номер, следующий за последней записью архива
+    public long nextSequence() {
+        lock.readLock().lock();
+        try {
+            return nextSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getArchivedCount() {
+        lock.readLock().lock();
+        try {
+            return archivedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Записи, которые не удалось сохранить (ошибка записи, пропуск в номерах, переполнение очереди)
+    public long getLostCount() {
+        lock.readLock().lock();
+        try {
+            return lostCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LogEntry get(long sequence) {
+        LogEntry[] found = new LogEntry[1];
+        forEach(sequence, 1, entry -> found[0] = entry);
+        return found[0] != null && found[0].getSequence() == sequence ? found[0] : null;
+    }
+
+    /* Передаёт в consumer до count записей архива, начиная с номера fromSequence.
+    С диска читаются только нужные записи. Под блокировкой снимается только список
+    сегментов с их границами и записи очереди; записи декодируются и передаются
+    в consumer уже без неё, поэтому медленный читатель не задерживает append(),
+    а consumer может сам писать в лог. Возвращает число переданных записей.
+    */
+    public int forEach(long fromSequence, int count, Consumer<? super LogEntry> consumer) {
+        Segment[] pinned;
+        int[] limits;
+        int offset = 0;
+        List<LogEntry> queuedTail = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (count <= 0 || fromSequence >= nextSequence) {
+                return 0;
+            }
+            int first = segments.size();
+            if (indexStart < indexEnd) {
+                int point = findIndexPoint(fromSequence);
+                first = indexSegments[point] - firstSegmentNumber;
+                offset = indexOffsets[point];
+            }
+            pinned = new Segment[segments.size() - first];
+            limits = new int[pinned.length];
+            for (int i = 0; i < pinned.length; i++) {
+                pinned[i] = segments.get(first + i);
+                pinned[i].pins.incrementAndGet(); // Список держит свою ссылку, пока мы под блокировкой
+                limits[i] = pinned[i].limit;
+            }
+            for (LogEntry entry : queued) { // Ещё не записанные на диск идут следом за сегментами
+                if (queuedTail.size() >= count) {
+                    break;
+                }
+                if (entry.getSequence() >= fromSequence) {
+                    queuedTail.add(entry);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int visited = 0;
+        try {
+            for (int i = 0; i < pinned.length && visited < count; i++, offset = 0) {
+                MappedByteBuffer map = pinned[i].map;
+                while (offset < limits[i] && visited < count) {
+                    long sequence = map.getLong(offset);
+                    int length = map.getInt(offset + 17);
+                    if (sequence >= fromSequence) {
+                        byte[] message = new byte[length];
+                        map.get(offset + HEADER_BYTES, message, 0, length);
+                        consumer.accept(new LogEntry(LEVELS[map.get(offset + 16)],
+                                new String(message, StandardCharsets.UTF_8), sequence, map.getLong(offset + 8)));
+                        visited++;
+                    }
+                    offset += HEADER_BYTES + length;
+                }
+            }
+        } finally {
+            for (Segment segment : pinned) {
+                release(segment);
+            }
+        }
+        for (int i = 0; i < queuedTail.size() && visited < count; i++) {
+            consumer.accept(queuedTail.get(i));
+            visited++;
+        }
+        return visited;
+    }
+
+    // Последняя точка индекса с номером не больше sequence (или первая точка)
+    private int findIndexPoint(long sequence) {
+        int low = indexStart;
+        int high = indexEnd - 1;
+        int result = indexStart;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (indexSequences[middle] <= sequence) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    // Ждёт, пока фоновый поток запишет в сегменты всё, что уже стоит в очереди
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            while (!queued.isEmpty() && writerThread.isAlive()) {
+                queueChanged.awaitUninterruptibly();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Дописывает очередь, останавливает фоновый поток и сбрасывает отображённые сегменты на диск
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            queueChanged.signalAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                segment.map.force();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Segment {
+        final int number;
+        final Path file;
+        final MappedByteBuffer map;
+        final AtomicInteger pins = new AtomicInteger(1); // Ссылки списка сегментов и читателей
+        int limit; // Конец последней записи
+
+        Segment(int number, Path file, MappedByteBuffer map) {
+            this.number = number;
+            this.file = file;
+            this.map = map;
+        }
+    }
+}
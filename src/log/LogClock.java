@@ -0,0 +1,26 @@
+package log;
+
+/* Дешёвые монотонные отметки времени для записей лога.
+Отметка — значение System.nanoTime(): она не зависит от перевода системных часов,
+поэтому записи в буфере упорядочены и по номеру, и по времени.
+Для показа отметка переводится в обычное время относительно момента запуска.
+*/
+public final class LogClock {
+    private static final long BASE_NANOS = System.nanoTime();
+    private static final long BASE_MILLIS = System.currentTimeMillis();
+
+    private LogClock() {}
+
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    // Отметка времени, отстоящая от текущей на seconds секунд назад
+    public static long secondsAgo(long seconds) {
+        return System.nanoTime() - seconds * 1_000_000_000L;
+    }
+
+    public static long toEpochMillis(long timestamp) {
+        return BASE_MILLIS + (timestamp - BASE_NANOS) / 1_000_000L;
+    }
+}
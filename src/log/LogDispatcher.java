@@ -0,0 +1,110 @@
+package log;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/* Асинхронная рассылка уведомлений о новых записях.
+Поток, который пишет в лог, только увеличивает счётчик и будит фоновый поток,
+когда счётчик выходит из нуля или доходит до размера пачки. Фоновый поток ждёт
+не дольше maxDelay с первого сигнала и вызывает слушателей один раз за всю пачку,
+поэтому медленный слушатель не задерживает таймер робота и другие пишущие потоки.
+*/
+public class LogDispatcher implements Closeable {
+    public static final int DEFAULT_MAX_BATCH = 1024;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(20);
+
+    private final Runnable target;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final AtomicLong pending = new AtomicLong(); // Сигналы с прошлой рассылки
+    private final Thread dispatcherThread;
+    private volatile boolean closed;
+
+    // Статистика фонового потока
+    private volatile long dispatched; // Сколько раз вызваны слушатели
+    private volatile long collapsed; // Сколько сигналов слито с другими
+    private volatile long dispatchNanos; // Суммарное время в слушателях
+
+    LogDispatcher(Runnable target, int maxBatch, Duration maxDelay) {
+        if (maxBatch <= 0 || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Batch size must be positive and delay must not be negative");
+        }
+        this.target = target;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = maxDelay.toNanos();
+
+        dispatcherThread = new Thread(this::runDispatcher, "log_dispatcher");
+        dispatcherThread.setDaemon(true);
+        dispatcherThread.start();
+    }
+
+    // Вызывается пишущим потоком на каждую запись
+    void signal() {
+        long count = pending.incrementAndGet();
+        if (count == 1 || count == maxBatch) {
+            LockSupport.unpark(dispatcherThread);
+        }
+    }
+
+    private void runDispatcher() {
+        while (!closed) {
+            if (pending.get() == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            // Собираем пачку: до maxBatch сигналов или до истечения задержки
+            long deadline = System.nanoTime() + maxDelayNanos;
+            long remaining;
+            while (!closed && pending.get() < maxBatch && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            dispatch();
+        }
+        dispatch(); // Последние сигналы перед остановкой
+    }
+
+    private void dispatch() {
+        long batch = pending.getAndSet(0);
+        if (batch == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            target.run();
+        } catch (RuntimeException e) {
+            System.err.println("Log listener failed: " + e);
+        }
+        dispatchNanos += System.nanoTime() - start;
+        collapsed += batch - 1;
+        dispatched++;
+    }
+
+    // Сколько раз слушатели были вызваны
+    public long getDispatchedCount() {
+        return dispatched;
+    }
+
+    // Сколько уведомлений не было отправлено отдельно, а объединено с соседними
+    public long getCollapsedCount() {
+        return collapsed;
+    }
+
+    // Суммарное время, проведённое в слушателях
+    public long getDispatchNanos() {
+        return dispatchNanos;
+    }
+
+    // Рассылает накопленные сигналы и останавливает фоновый поток
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcherThread);
+        try {
+            dispatcherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
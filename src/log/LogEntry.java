@@ -1,16 +1,25 @@
 package log;
 
-// Хранит одно сообщение лога вместе с его уровнем
+// Хранит одно сообщение лога вместе с его уровнем, порядковым номером и временем добавления
 
 public class LogEntry
 {
     private LogLevel m_logLevel;
     private String m_strMessage;
+    private final long m_lSequence;
+    private final long m_lTimestamp;
     
     public LogEntry(LogLevel logLevel, String strMessage)
+    {
+        this(logLevel, strMessage, -1, LogClock.now());
+    }
+    
+    public LogEntry(LogLevel logLevel, String strMessage, long lSequence, long lTimestamp)
     {
         m_strMessage = strMessage;
         m_logLevel = logLevel;
+        m_lSequence = lSequence;
+        m_lTimestamp = lTimestamp;
     }
     
     public String getMessage()
@@ -22,5 +31,17 @@ public class LogEntry
     {
         return m_logLevel;
     }
+    
+    // Монотонный номер записи в источнике (-1, если запись создана вне буфера)
+    public long getSequence()
+    {
+        return m_lSequence;
+    }
+    
+    // Монотонная отметка времени добавления (см. LogClock)
+    public long getTimestamp()
+    {
+        return m_lTimestamp;
+    }
 }
 
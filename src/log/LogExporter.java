@@ -0,0 +1,175 @@
+package log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.zip.GZIPOutputStream;
+
+/* Потоковая выгрузка лога в файл для фоновой задачи.
+Записи читаются из буфера (и архива) кусками по номерам, кодируются в прямой
+буфер и пишутся через канал, при необходимости сжимаясь gzip. В памяти
+одновременно находится только один кусок, поэтому размер выгрузки не ограничен.
+*/
+public class LogExporter {
+    public enum Format {
+        TEXT, // [Level] сообщение — как в файле лога
+        NDJSON // Одна JSON-запись на строку: номер, время, уровень, сообщение
+    }
+
+    // Сообщает, сколько номеров из общего диапазона уже пройдено
+    public interface ProgressListener {
+        void onProgress(long done, long total);
+    }
+
+    private static final int CHUNK = 4096; // Сколько записей читается из буфера за раз
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final CircularLogBuffer buffer;
+    private final Format format;
+    private final boolean gzip;
+    private volatile boolean cancelled;
+
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder();
+    private final List<LogEntry> chunk = new ArrayList<>(CHUNK);
+
+    public LogExporter(CircularLogBuffer buffer, Format format, boolean gzip) {
+        this.buffer = buffer;
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    // Формат по имени файла: *.ndjson / *.json — NDJSON, окончание .gz — сжатие
+    public static LogExporter forFile(CircularLogBuffer buffer, Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        Format format = name.endsWith(".ndjson") || name.endsWith(".json") ? Format.NDJSON : Format.TEXT;
+        return new LogExporter(buffer, format, gzip);
+    }
+
+    // Можно вызывать из любого потока; выгрузка прервётся на ближайшем куске
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /* Выгружает все записи, которые есть на момент вызова, и возвращает их число.
+    При отмене недописанный файл удаляется и бросается CancellationException.
+    */
+    public long exportTo(Path file, ProgressListener listener) throws IOException {
+        long first = buffer.historyFirstSequence();
+        long end = buffer.nextSequence(); // Записи, добавленные во время выгрузки, в неё не попадают
+        long total = end - first;
+        long exported = 0;
+        boolean completed = false;
+        try (WritableByteChannel channel = open(file)) {
+            long sequence = first;
+            while (sequence < end) {
+                if (cancelled) {
+                    throw new CancellationException("Log export cancelled");
+                }
+                chunk.clear();
+                buffer.forEachInHistory(sequence, (int) Math.min(CHUNK, end - sequence), chunk::add);
+                if (chunk.isEmpty()) {
+                    break; // Оставшиеся записи вытеснены без архива
+                }
+                for (LogEntry entry : chunk) {
+                    if (entry.getSequence() >= end) {
+                        break;
+                    }
+                    encode(entry, channel);
+                    exported++;
+                }
+                sequence = chunk.get(chunk.size() - 1).getSequence() + 1;
+                if (listener != null) {
+                    listener.onProgress(Math.min(sequence, end) - first, total);
+                }
+            }
+            flushBuffer(channel);
+            completed = true;
+        } finally {
+            byteBuffer.clear();
+            chunk.clear();
+            if (!completed) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return exported;
+    }
+
+    private WritableByteChannel open(Path file) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (!gzip) {
+            return fileChannel;
+        }
+        return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_BYTES));
+    }
+
+    private void encode(LogEntry entry, WritableByteChannel channel) throws IOException {
+        line.setLength(0);
+        if (format == Format.NDJSON) {
+            line.append("{\"seq\":").append(entry.getSequence())
+                    .append(",\"time\":").append(LogClock.toEpochMillis(entry.getTimestamp()))
+                    .append(",\"level\":\"").append(entry.getLevel().name())
+                    .append("\",\"message\":\"");
+            appendJsonEscaped(entry.getMessage());
+            line.append("\"}\n");
+        } else {
+            line.append('[').append(entry.getLevel().name()).append("] ")
+                    .append(entry.getMessage()).append(System.lineSeparator());
+        }
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, byteBuffer, true);
+            if (!result.isOverflow()) {
+                break;
+            }
+            flushBuffer(channel);
+        }
+        encoder.reset();
+    }
+
+    private void appendJsonEscaped(String message) {
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else if (c == '\r') {
+                line.append("\\r");
+            } else if (c == '\t') {
+                line.append("\\t");
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    private void flushBuffer(WritableByteChannel channel) throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+}
@@ -0,0 +1,195 @@
+package log;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Защита буфера лога от потока одинаковых или слишком частых сообщений.
+Стоит перед LogWindowSource.append и отсекает записи до того, как они попадут
+в буфер, к аппендерам и слушателям:
+ - подряд идущие одинаковые сообщения схлопываются в одно «repeated N times»;
+ - для каждого уровня действует ограничение частоты (ведро токенов);
+ - Trace и Debug при заполнении ведра больше чем наполовину прореживаются.
+Все проверки без блокировок: состояние меняется через CAS, и пропуск сообщения
+ничего не выделяет в куче.
+*/
+public class LogFloodGuard {
+    public static final double DEFAULT_RATE_PER_SECOND = 1000;
+    public static final int DEFAULT_BURST = 2000;
+    public static final int DEFAULT_SAMPLE_RATE = 10; // Под нагрузкой сохраняется каждая 10-я запись Trace/Debug
+    // Шаблон сводки о повторах для String.format; окно может заменить его переводом
+    public static final String DEFAULT_SUMMARY_FORMAT = "Previous message repeated %d times";
+
+    private static final int LEVELS = LogLevel.values().length;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+    private static final long WRITING = COUNT_MASK; // Слот нового сообщения ещё заполняется
+    private static final long MAX_REPEATS = WRITING - 1;
+
+    // Ведро токенов в виде «теоретического времени прихода»: одно число на уровень
+    private final AtomicLongArray intervalNanos = new AtomicLongArray(LEVELS); // 0 — без ограничения
+    private final AtomicLongArray burstNanos = new AtomicLongArray(LEVELS);
+    private final AtomicLongArray theoreticalArrival = new AtomicLongArray(LEVELS);
+    private volatile boolean deduplicate = true;
+    private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile String summaryFormat = DEFAULT_SUMMARY_FORMAT;
+
+    /* Последнее пропущенное сообщение. Поколение (старшие 32 бита) и число повторов
+    (младшие) меняются одним CAS; сообщение и уровень лежат в одном из двух слотов,
+    выбранном чётностью поколения. Новое сообщение записывается в другой слот, пока
+    счётчик равен WRITING, поэтому объект-держатель не нужен. Слоты читаются без
+    синхронизации: всё прочитанное проверяется последующим CAS по тому же состоянию.
+    */
+    private final AtomicLong lastState = new AtomicLong();
+    private final String[] lastMessages = new String[2];
+    private final LogLevel[] lastLevels = new LogLevel[2];
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLongArray rateLimited = new AtomicLongArray(LEVELS);
+    private final AtomicLongArray sampled = new AtomicLongArray(LEVELS);
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    // Ограничения по умолчанию: Trace..Warning не чаще DEFAULT_RATE_PER_SECOND, Error и Fatal без ограничений
+    public LogFloodGuard() {
+        long now = System.nanoTime();
+        for (LogLevel level : LogLevel.values()) {
+            theoreticalArrival.set(level.level(), now);
+            if (level.level() < LogLevel.Error.level()) {
+                setRateLimit(level, DEFAULT_RATE_PER_SECOND, DEFAULT_BURST);
+            }
+        }
+    }
+
+    // Не больше perSecond сообщений уровня в секунду с допустимым всплеском burst; perSecond <= 0 снимает ограничение
+    public void setRateLimit(LogLevel level, double perSecond, int burst) {
+        if (perSecond <= 0) {
+            intervalNanos.set(level.level(), 0);
+            return;
+        }
+        long interval = Math.max(1, (long) (1_000_000_000L / perSecond));
+        burstNanos.set(level.level(), interval * Math.max(1, burst));
+        intervalNanos.set(level.level(), interval);
+    }
+
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    // Каждая rate-я запись Trace/Debug под нагрузкой; 0 или 1 отключают прореживание
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    // Шаблон сводки о повторах с одним %d, например переведённый (см. DEFAULT_SUMMARY_FORMAT)
+    public void setSummaryFormat(String summaryFormat) {
+        this.summaryFormat = summaryFormat;
+    }
+
+    /* Решает, попадёт ли сообщение в лог. Перед первым сообщением, отличным от
+    повторявшегося, в source дописывается сводка о числе повторов.
+    */
+    boolean admit(LogWindowSource source, LogLevel level, String message) {
+        if (deduplicate && isRepeat(source, level, message)) {
+            return false;
+        }
+        int index = level.level();
+        long interval = intervalNanos.get(index);
+        if (interval == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long burst = burstNanos.get(index);
+        while (true) {
+            long arrival = theoreticalArrival.get(index);
+            long base = arrival - now > 0 ? arrival : now;
+            long backlog = base - now;
+            if (backlog + interval > burst) {
+                rateLimited.incrementAndGet(index);
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(index, arrival, base + interval)) {
+                // Ведро заполнено больше чем наполовину: Trace и Debug прореживаются
+                int rate = sampleRate;
+                if (rate > 1 && index <= LogLevel.Debug.level() && backlog * 2 > burst
+                        && sampleCounter.incrementAndGet() % rate != 0) {
+                    sampled.incrementAndGet(index);
+                    return false;
+                }
+                return true;
+            }
+        }
+    }
+
+    private boolean isRepeat(LogWindowSource source, LogLevel level, String message) {
+        while (true) {
+            long state = lastState.get();
+            long count = state & COUNT_MASK;
+            if (count == WRITING) {
+                return false; // Другой поток как раз заменяет сообщение; это пропускаем без проверки
+            }
+            int slot = (int) (state >>> 32) & 1;
+            if (count < MAX_REPEATS && lastLevels[slot] == level && message.equals(lastMessages[slot])) {
+                if (lastState.compareAndSet(state, state + 1)) {
+                    duplicates.incrementAndGet();
+                    return true;
+                }
+                continue;
+            }
+            if (replace(source, state, level, message)) {
+                return false;
+            }
+        }
+    }
+
+    // Начинает новое поколение с сообщением message (null — без сообщения); false, если состояние уже другое
+    private boolean replace(LogWindowSource source, long state, LogLevel level, String message) {
+        long next = ((state >>> 32) + 1) << 32;
+        if (!lastState.compareAndSet(state, next | WRITING)) {
+            return false;
+        }
+        int slot = (int) (state >>> 32) & 1;
+        LogLevel replacedLevel = lastLevels[slot];
+        lastMessages[slot ^ 1] = message;
+        lastLevels[slot ^ 1] = level;
+        lastState.set(next);
+        long repeats = state & COUNT_MASK;
+        if (repeats > 0) {
+            source.appendUnguarded(replacedLevel, String.format(Locale.ROOT, summaryFormat, repeats));
+        }
+        return true;
+    }
+
+    // Дописывает сводку о повторах последнего сообщения, если они были
+    public void flush(LogWindowSource source) {
+        while (true) {
+            long state = lastState.get();
+            if ((state & COUNT_MASK) == WRITING) {
+                Thread.onSpinWait();
+            } else if (replace(source, state, null, null)) {
+                return;
+            }
+        }
+    }
+
+    // Сообщения, схлопнутые как повторы
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    // Сообщения уровня, отброшенные ограничением частоты
+    public long getRateLimitedCount(LogLevel level) {
+        return rateLimited.get(level.level());
+    }
+
+    // Сообщения уровня, отброшенные прореживанием
+    public long getSampledCount(LogLevel level) {
+        return sampled.get(level.level());
+    }
+
+    // Всего отброшено по всем причинам
+    public long getSuppressedCount() {
+        long total = duplicates.get();
+        for (int i = 0; i < LEVELS; i++) {
+            total += rateLimited.get(i) + sampled.get(i);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,169 @@
+package log;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Счётчики нагрузки на лог: добавления по уровням, задержка append,
+время рассылки слушателям. Счётчики — LongAdder, поэтому параллельные писатели
+не соперничают за одну ячейку. Остальные показатели (вытеснения, конкуренция,
+заполненность) берутся из буфера в момент снимка.
+*/
+public class LogMetrics implements LogMetricsMXBean {
+    public static final String DEFAULT_OBJECT_NAME = "robots.log:type=LogMetrics";
+    private static final int LATENCY_BUCKETS = 40; // До 2^39 нс
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LogWindowSource source;
+    private final LongAdder[] appends = new LongAdder[LogLevel.values().length];
+    private final LongAdder[] latency = new LongAdder[LATENCY_BUCKETS];
+    private final LongAdder syncDispatchCount = new LongAdder();
+    private final LongAdder syncDispatchNanos = new LongAdder();
+    // Начала двух последних окон частоты {раннее, позднее}; сдвигаются по времени, а не по чтениям
+    private final AtomicReference<LogMetricsSnapshot[]> rateWindows = new AtomicReference<>();
+
+    LogMetrics(LogWindowSource source) {
+        this.source = source;
+        for (int i = 0; i < appends.length; i++) {
+            appends[i] = new LongAdder();
+        }
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LongAdder();
+        }
+    }
+
+    void recordAppend(LogLevel level, long latencyNanos) {
+        appends[level.level()].increment();
+        int bucket = 64 - Long.numberOfLeadingZeros(Math.max(0, latencyNanos));
+        latency[Math.min(bucket, LATENCY_BUCKETS - 1)].increment();
+    }
+
+    void recordDispatch(long nanos) {
+        syncDispatchCount.increment();
+        syncDispatchNanos.add(nanos);
+    }
+
+    public LogMetricsSnapshot snapshot() {
+        long[] appendsByLevel = new long[appends.length];
+        for (int i = 0; i < appends.length; i++) {
+            appendsByLevel[i] = appends[i].sum();
+        }
+        long[] histogram = new long[latency.length];
+        for (int i = 0; i < latency.length; i++) {
+            histogram[i] = latency[i].sum();
+        }
+        long dispatchCount = syncDispatchCount.sum();
+        long dispatchNanos = syncDispatchNanos.sum();
+        LogDispatcher dispatcher = source.getDispatcher();
+        if (dispatcher != null) {
+            dispatchCount += dispatcher.getDispatchedCount();
+            dispatchNanos += dispatcher.getDispatchNanos();
+        }
+        CircularLogBuffer buffer = source.getBuffer();
+        return new LogMetricsSnapshot(System.nanoTime(), appendsByLevel, buffer.getEvictedCount(),
+                dispatchCount, dispatchNanos, buffer.getContentionCount(), buffer.getContentionNanos(),
+                buffer.getOvertakenCount(), buffer.size(), buffer.capacity(), histogram);
+    }
+
+    // Регистрирует метрики в платформенном MBeanServer
+    public void register(String objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+    }
+
+    public void unregister(String objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(objectName));
+    }
+
+    @Override
+    public long[] getAppendsByLevel() {
+        return snapshot().getAppendsByLevel();
+    }
+
+    /* Частота считается от начала раннего окна, то есть за последние 10-20 секунд
+    (при первом чтении окно только открывается). Окна сдвигаются, когда позднее
+    старше RATE_WINDOW_NANOS, поэтому читатели не сбрасывают частоту друг другу.
+    */
+    @Override
+    public double[] getAppendRatesPerSecond() {
+        LogMetricsSnapshot current = snapshot();
+        LogMetricsSnapshot[] windows = rateWindows.get();
+        if (windows == null || current.getNanos() - windows[1].getNanos() >= RATE_WINDOW_NANOS) {
+            LogMetricsSnapshot[] shifted = windows == null
+                    ? new LogMetricsSnapshot[] {current, current}
+                    : new LogMetricsSnapshot[] {windows[1], current};
+            if (!rateWindows.compareAndSet(windows, shifted)) {
+                shifted = rateWindows.get(); // Окно уже сдвинул другой читатель
+            }
+            windows = shifted;
+        }
+        LogLevel[] levels = LogLevel.values();
+        double[] rates = new double[levels.length];
+        for (LogLevel level : levels) {
+            rates[level.level()] = current.appendRate(level, windows[0]);
+        }
+        return rates;
+    }
+
+    @Override
+    public long getEvictedCount() {
+        return source.getBuffer().getEvictedCount();
+    }
+
+    @Override
+    public long getDispatchCount() {
+        return snapshot().getDispatchCount();
+    }
+
+    @Override
+    public long getDispatchNanos() {
+        return snapshot().getDispatchNanos();
+    }
+
+    @Override
+    public long getContentionCount() {
+        return source.getBuffer().getContentionCount();
+    }
+
+    @Override
+    public long getContentionNanos() {
+        return source.getBuffer().getContentionNanos();
+    }
+
+    @Override
+    public long getOvertakenCount() {
+        return source.getBuffer().getOvertakenCount();
+    }
+
+    @Override
+    public int getSize() {
+        return source.getBuffer().size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return source.getBuffer().capacity();
+    }
+
+    @Override
+    public double getFillRatio() {
+        return (double) getSize() / getCapacity();
+    }
+
+    @Override
+    public long[] getAppendLatencyHistogram() {
+        return snapshot().getLatencyHistogram();
+    }
+
+    @Override
+    public long getAppendLatencyP50Nanos() {
+        return snapshot().latencyPercentile(0.5);
+    }
+
+    @Override
+    public long getAppendLatencyP99Nanos() {
+        return snapshot().latencyPercentile(0.99);
+    }
+}
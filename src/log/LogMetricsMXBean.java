@@ -0,0 +1,37 @@
+package log;
+
+/* Метрики подсистемы логирования для JMX (jconsole, VisualVM).
+Массивы по уровням упорядочены как LogLevel.values().
+*/
+public interface LogMetricsMXBean {
+    long[] getAppendsByLevel();
+
+    // Частота добавления по уровням за последние 10-20 секунд; чтение не сбрасывает её
+    double[] getAppendRatesPerSecond();
+
+    long getEvictedCount();
+
+    long getDispatchCount();
+
+    long getDispatchNanos();
+
+    long getContentionCount();
+
+    long getContentionNanos();
+
+    // Записи, не попавшие в буфер LOCK_FREE из-за обгона писателем следующего круга
+    long getOvertakenCount();
+
+    int getSize();
+
+    int getCapacity();
+
+    double getFillRatio();
+
+    // Гистограмма задержки append: элемент i — число вызовов длительностью меньше 2^i нс
+    long[] getAppendLatencyHistogram();
+
+    long getAppendLatencyP50Nanos();
+
+    long getAppendLatencyP99Nanos();
+}
@@ -0,0 +1,117 @@
+package log;
+
+import java.util.Arrays;
+
+// Неизменяемый снимок метрик лога на момент getNanos()
+public final class LogMetricsSnapshot {
+    private final long nanos;
+    private final long[] appendsByLevel;
+    private final long evictedCount;
+    private final long dispatchCount;
+    private final long dispatchNanos;
+    private final long contentionCount;
+    private final long contentionNanos;
+    private final long overtakenCount;
+    private final int size;
+    private final int capacity;
+    private final long[] latencyHistogram;
+
+    LogMetricsSnapshot(long nanos, long[] appendsByLevel, long evictedCount, long dispatchCount,
+                       long dispatchNanos, long contentionCount, long contentionNanos, long overtakenCount,
+                       int size, int capacity, long[] latencyHistogram) {
+        this.nanos = nanos;
+        this.appendsByLevel = appendsByLevel;
+        this.evictedCount = evictedCount;
+        this.dispatchCount = dispatchCount;
+        this.dispatchNanos = dispatchNanos;
+        this.contentionCount = contentionCount;
+        this.contentionNanos = contentionNanos;
+        this.overtakenCount = overtakenCount;
+        this.size = size;
+        this.capacity = capacity;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getAppends(LogLevel level) {
+        return appendsByLevel[level.level()];
+    }
+
+    public long[] getAppendsByLevel() {
+        return appendsByLevel.clone();
+    }
+
+    public long getTotalAppends() {
+        return Arrays.stream(appendsByLevel).sum();
+    }
+
+    // Записей уровня в секунду между более ранним снимком earlier и этим
+    public double appendRate(LogLevel level, LogMetricsSnapshot earlier) {
+        long elapsed = nanos - earlier.nanos;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return (getAppends(level) - earlier.getAppends(level)) * 1e9 / elapsed;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    public long getDispatchNanos() {
+        return dispatchNanos;
+    }
+
+    public long getContentionCount() {
+        return contentionCount;
+    }
+
+    public long getContentionNanos() {
+        return contentionNanos;
+    }
+
+    public long getOvertakenCount() {
+        return overtakenCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getFillRatio() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    // Элемент i — число вызовов append длительностью меньше 2^i нс (и не меньше 2^(i-1))
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    // Верхняя граница задержки, в которую укладывается доля quantile вызовов (с точностью до степени двойки)
+    public long latencyPercentile(double quantile) {
+        long total = Arrays.stream(latencyHistogram).sum();
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            seen += latencyHistogram[i];
+            if (seen >= threshold) {
+                return 1L << i;
+            }
+        }
+        return 1L << (latencyHistogram.length - 1);
+    }
+}
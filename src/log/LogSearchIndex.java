@@ -0,0 +1,224 @@
+package log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/* Инвертированный индекс по словам сообщений: слово -> отсортированный список номеров записей.
+Пополняется не в потоке, который пишет в лог, а слушателем: через LogSubscription
+дочитывает новые записи буфера в потоке рассылки (LogDispatcher), а также перед
+каждым поиском. Записи, вытесненные до индексации, и так не нашлись бы. Номера вытесненных
+записей отбрасываются: при запросе отрезается устаревшее начало списков, а раз в
+capacity добавлений проходит полная очистка, удаляющая и пустые слова.
+Запрос ищет записи, содержащие все слова запроса, начиная с самого короткого списка.
+*/
+public class LogSearchIndex implements LogChangeListener {
+    private static final int MIN_COMPACT_INTERVAL = 1024;
+
+    private final CircularLogBuffer buffer;
+    private final LogSubscription subscription; // Только под монитором индекса
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final int compactInterval;
+    private int appendsSinceCompact;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LogSearchIndex(CircularLogBuffer buffer) {
+        this.buffer = buffer;
+        this.compactInterval = Math.max(MIN_COMPACT_INTERVAL, buffer.capacity());
+        this.subscription = new LogSubscription(buffer, buffer.firstSequence());
+    }
+
+    @Override
+    public void onLogChanged() {
+        catchUp();
+    }
+
+    // Индексирует записи, добавленные в буфер с прошлого вызова
+    public synchronized void catchUp() {
+        subscription.poll(this::add);
+    }
+
+    private void add(LogEntry entry) {
+        List<String> tokens = tokenize(entry.getMessage());
+        long sequence = entry.getSequence();
+        lock.writeLock().lock();
+        try {
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, key -> new Postings()).add(sequence);
+            }
+            if (++appendsSinceCompact >= compactInterval) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Удаляет номера вытесненных записей и слова без живых записей
+    private void compact() {
+        appendsSinceCompact = 0;
+        long first = buffer.firstSequence();
+        Iterator<Postings> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            list.dropBefore(first);
+            if (list.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public int getTokenCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Номера не более чем limit новейших записей, содержащих все слова запроса,
+    по возрастанию. Пустой запрос ничего не находит.
+    */
+    public long[] search(String query, int limit) {
+        catchUp();
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        long first = buffer.firstSequence();
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[tokens.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(tokens.get(i));
+                if (lists[i] == null) {
+                    return new long[0];
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+            Postings shortest = lists[0];
+            long[] result = new long[Math.min(limit, shortest.size())];
+            int found = 0;
+            // От новых к старым, пока не наберём limit или не дойдём до вытесненных
+            for (int i = shortest.end - 1; i >= shortest.start && found < result.length; i--) {
+                long sequence = shortest.sequences[i];
+                if (sequence < first) {
+                    break;
+                }
+                boolean inAll = true;
+                for (int j = 1; j < lists.length && inAll; j++) {
+                    inAll = lists[j].contains(sequence);
+                }
+                if (inAll) {
+                    result[found++] = sequence;
+                }
+            }
+            long[] sorted = Arrays.copyOf(result, found);
+            Arrays.sort(sorted);
+            return sorted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Найденные записи в порядке добавления; возвращает их число
+    public int forEachMatch(String query, int limit, Consumer<? super LogEntry> consumer) {
+        int visited = 0;
+        for (long sequence : search(query, limit)) {
+            LogEntry entry = buffer.get(sequence);
+            if (entry != null) {
+                consumer.accept(entry);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    // Слова из букв и цифр в нижнем регистре, без повторов
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Отсортированный список номеров со сдвигаемым началом
+    private static final class Postings {
+        long[] sequences = new long[4];
+        int start;
+        int end;
+
+        int size() {
+            return end - start;
+        }
+
+        boolean isEmpty() {
+            return start == end;
+        }
+
+        // Номера почти всегда приходят по возрастанию; при нескольких писателях вставляем на место
+        void add(long sequence) {
+            if (end == sequences.length) {
+                grow();
+            }
+            int position = end;
+            while (position > start && sequences[position - 1] > sequence) {
+                position--;
+            }
+            if (position > start && sequences[position - 1] == sequence) {
+                return;
+            }
+            System.arraycopy(sequences, position, sequences, position + 1, end - position);
+            sequences[position] = sequence;
+            end++;
+        }
+
+        private void grow() {
+            int live = size();
+            if (start > 0 && live < sequences.length / 2) {
+                System.arraycopy(sequences, start, sequences, 0, live);
+            } else {
+                long[] larger = new long[sequences.length * 2];
+                System.arraycopy(sequences, start, larger, 0, live);
+                sequences = larger;
+            }
+            start = 0;
+            end = live;
+        }
+
+        void dropBefore(long first) {
+            while (start < end && sequences[start] < first) {
+                start++;
+            }
+            int live = size();
+            if (sequences.length > 16 && live < sequences.length / 4) {
+                sequences = Arrays.copyOfRange(sequences, start, start + Math.max(4, live * 2));
+                start = 0;
+                end = live;
+            }
+        }
+
+        boolean contains(long sequence) {
+            return Arrays.binarySearch(sequences, start, end, sequence) >= 0;
+        }
+    }
+}
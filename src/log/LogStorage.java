@@ -0,0 +1,41 @@
+package log;
+
+// Хранилище слотов кольцевого буфера. CircularLogBuffer выбирает реализацию
+// в зависимости от режима синхронизации.
+interface LogStorage {
+    // Возвращает номер добавленной записи
+    long append(LogLevel logLevel, String message, long timestamp);
+
+    int size();
+
+    Iterable<LogEntry> range(int startFrom, int count);
+
+    int capacity();
+
+    // Номер, который получит следующая запись (= число добавленных записей)
+    long nextSequence();
+
+    // Номер самой старой записи, которая ещё может быть в хранилище
+    long firstSequence();
+
+    // Номера новейших записей с уровнем не ниже minLevel по возрастанию (не больше out.length)
+    int newest(LogLevel minLevel, long[] out);
+
+    // Получатель вытесненных записей (null — вытесненные записи просто теряются)
+    void setEvictionListener(EvictionListener listener);
+
+    // Сколько раз писатель ждал блокировку или повторял CAS
+    long contentionCount();
+
+    // Суммарное время ожидания блокировки (0 для хранилища без блокировок)
+    long contentionNanos();
+
+    // Сколько записей не попало в буфер: их слот уже занял писатель следующего круга
+    long overtakenCount();
+
+    // Отметка времени записи; Long.MIN_VALUE, если запись вытеснена, Long.MAX_VALUE — если ещё не опубликована
+    long timestamp(long sequence);
+
+    // Запись с номером sequence или null, если она вытеснена или ещё не опубликована
+    LogEntry get(long sequence);
+}
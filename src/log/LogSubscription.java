@@ -0,0 +1,61 @@
+package log;
+
+import java.util.function.Consumer;
+
+/* Инкрементальная подписка на буфер лога.
+Помнит номер последней полученной записи и при каждом poll() отдаёт только
+более новые записи. Записи, вытесненные из буфера до того, как подписчик
+успел их прочитать, учитываются как потерянные.
+Один экземпляр предназначен для одного потока-читателя.
+*/
+public final class LogSubscription {
+    private final CircularLogBuffer buffer;
+    private long nextSequence; // Первый ещё не полученный номер
+    private long lostCount; // Всего потеряно из-за перезаписи
+
+    LogSubscription(CircularLogBuffer buffer, long fromSequence) {
+        this.buffer = buffer;
+        this.nextSequence = fromSequence;
+    }
+
+    // Передаёт новые записи в consumer и возвращает число потерянных с прошлого вызова
+    public int poll(Consumer<? super LogEntry> consumer) {
+        long lost = 0;
+        long end = buffer.nextSequence();
+        while (nextSequence < end) {
+            LogEntry entry = buffer.get(nextSequence);
+            if (entry == null) {
+                long first = buffer.firstSequence();
+                if (nextSequence >= first) {
+                    break; // Запись ещё публикуется писателем, дочитаем в следующий раз
+                }
+                lost += first - nextSequence;
+                nextSequence = first;
+                continue;
+            }
+            consumer.accept(entry);
+            nextSequence++;
+        }
+        lostCount += lost;
+        return (int) Math.min(lost, Integer.MAX_VALUE);
+    }
+
+    // Продолжить с записи с номером sequence
+    public void seek(long sequence) {
+        nextSequence = Math.max(0, sequence);
+    }
+
+    // Начать заново с самой старой записи, которая есть в буфере
+    public void rewind() {
+        nextSequence = buffer.firstSequence();
+    }
+
+    // Номер последней полученной записи (-1, если ещё ничего не получено)
+    public long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    public long getLostCount() {
+        return lostCount;
+    }
+}
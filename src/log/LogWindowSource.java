@@ -1,13 +1,30 @@
 package log;
 
+import java.time.Duration;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class LogWindowSource {
     private final CircularLogBuffer buffer;
     private final CopyOnWriteArrayList<LogChangeListener> listeners;
+    private final CopyOnWriteArrayList<LogAppender> appenders = new CopyOnWriteArrayList<>();
+    private LogSearchIndex searchIndex;
+    // Если задан, слушатели вызываются из его потока, а не из потока, который пишет в лог
+    private volatile LogDispatcher dispatcher;
+    // Если задана, отсекает повторы и слишком частые сообщения до попадания в буфер
+    private volatile LogFloodGuard floodGuard;
+    private final LogMetrics metrics = new LogMetrics(this);
 
     public LogWindowSource(int queueCapacity) {
-        this.buffer = new CircularLogBuffer(queueCapacity);
+        this(queueCapacity, CircularLogBuffer.Mode.LOCKING);
+    }
+
+    public LogWindowSource(int queueCapacity, CircularLogBuffer.Mode mode) {
+        this(new CircularLogBuffer(queueCapacity, mode));
+    }
+
+    public LogWindowSource(CircularLogBuffer buffer) {
+        this.buffer = buffer;
         this.listeners = new CopyOnWriteArrayList<>();
     }
 
@@ -21,9 +38,90 @@ public class LogWindowSource {
         listeners.remove(listener);
     }
 
+    public void addAppender(LogAppender appender) {
+        appenders.addIfAbsent(appender);
+    }
+
+    public void removeAppender(LogAppender appender) {
+        appenders.remove(appender);
+    }
+
+    /* Переводит уведомления слушателей в фоновый поток: пишущий поток только подаёт сигнал,
+    а слушатели вызываются один раз на пачку до maxBatch записей, не позже maxDelay.
+    */
+    public synchronized LogDispatcher enableAsyncDispatch(int maxBatch, Duration maxDelay) {
+        disableAsyncDispatch();
+        dispatcher = new LogDispatcher(this::notifyListeners, maxBatch, maxDelay);
+        return dispatcher;
+    }
+
+    // Возвращает синхронные уведомления; накопленные сигналы рассылаются перед остановкой потока
+    public synchronized void disableAsyncDispatch() {
+        LogDispatcher current = dispatcher;
+        if (current != null) {
+            dispatcher = null;
+            current.close();
+        }
+    }
+
+    public LogDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /* Включает полнотекстовый индекс (при первом вызове) и возвращает его.
+    Записи, уже лежащие в буфере, индексирует первый вызов catchUp.
+    */
+    public synchronized LogSearchIndex enableSearch() {
+        if (searchIndex == null) {
+            searchIndex = new LogSearchIndex(buffer); // Начинает с записей, которые уже в буфере
+            registerListener(searchIndex);
+        }
+        return searchIndex;
+    }
+
+    public void setFloodGuard(LogFloodGuard floodGuard) {
+        this.floodGuard = floodGuard;
+    }
+
+    public LogFloodGuard getFloodGuard() {
+        return floodGuard;
+    }
+
     public void append(LogLevel logLevel, String strMessage) {
-        buffer.append(logLevel, strMessage);
-        notifyListeners();
+        LogFloodGuard guard = floodGuard;
+        if (guard != null && !guard.admit(this, logLevel, strMessage)) {
+            return;
+        }
+        appendUnguarded(logLevel, strMessage);
+    }
+
+    // Добавление в обход защиты от флуда (сводки самой защиты)
+    void appendUnguarded(LogLevel logLevel, String strMessage) {
+        long timestamp = LogClock.now();
+        long sequence = buffer.append(logLevel, strMessage, timestamp);
+        if (!appenders.isEmpty()) {
+            LogEntry entry = new LogEntry(logLevel, strMessage, sequence, timestamp);
+            for (LogAppender appender : appenders) {
+                appender.append(entry);
+            }
+        }
+        LogDispatcher currentDispatcher = dispatcher;
+        if (currentDispatcher != null) {
+            currentDispatcher.signal();
+        } else if (!listeners.isEmpty()) {
+            long dispatchStart = System.nanoTime();
+            notifyListeners();
+            long end = System.nanoTime();
+            metrics.recordDispatch(end - dispatchStart);
+            metrics.recordAppend(logLevel, end - timestamp);
+            return;
+        }
+        metrics.recordAppend(logLevel, System.nanoTime() - timestamp);
+    }
+
+    // Счётчики нагрузки (их же публикует JMX, см. LogMetrics.register)
+    public LogMetrics getMetrics() {
+        return metrics;
     }
 
     private void notifyListeners() {
@@ -44,6 +142,42 @@ public class LogWindowSource {
         return buffer.all();
     }
 
+    public int forEach(int startFrom, int count, Consumer<? super LogEntry> consumer) {
+        return buffer.forEach(startFrom, count, consumer);
+    }
+
+    public void forEach(Consumer<? super LogEntry> consumer) {
+        buffer.forEach(consumer);
+    }
+
+    // Обход по номерам, включая записи из архива на диске
+    public int forEachInHistory(long fromSequence, int count, Consumer<? super LogEntry> consumer) {
+        return buffer.forEachInHistory(fromSequence, count, consumer);
+    }
+
+    public int forEachNewest(LogLevel minLevel, int count, Consumer<? super LogEntry> consumer) {
+        return buffer.forEachNewest(minLevel, count, consumer);
+    }
+
+    // Записи с отметкой времени в [fromTimestamp, toTimestamp), см. LogClock
+    public int forEachByTime(long fromTimestamp, long toTimestamp, Consumer<? super LogEntry> consumer) {
+        return buffer.forEachByTime(fromTimestamp, toTimestamp, consumer);
+    }
+
+    public Iterable<LogEntry> rangeByTime(long fromTimestamp, long toTimestamp) {
+        return buffer.rangeByTime(fromTimestamp, toTimestamp);
+    }
+
+    // Подписка, которая начнёт с самой старой записи в буфере
+    public LogSubscription subscribe() {
+        return new LogSubscription(buffer, buffer.firstSequence());
+    }
+
+    // Подписка только на записи, добавленные после вызова
+    public LogSubscription subscribeFromNow() {
+        return new LogSubscription(buffer, buffer.nextSequence());
+    }
+
     public CircularLogBuffer getBuffer() {
         return buffer;
     }
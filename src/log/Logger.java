@@ -1,34 +1,264 @@
 package log;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
 // Упрощает запись в лог, предоставляя методы для каждого уровня
 
 public final class Logger {
-    private static final LogWindowSource defaultLogSource = new LogWindowSource(20); // Размер буфера
+    // Ёмкость буфера и режим хранения (LOCKING, LOCK_FREE, COMPACT) задаются свойствами
+    private static final String LOG_CAPACITY_PROPERTY = "robots.log.capacity";
+    private static final String LOG_MODE_PROPERTY = "robots.log.mode";
+    // Каталог для архива вытесненных записей; без него старые записи теряются
+    private static final String LOG_ARCHIVE_PROPERTY = "robots.log.archive.dir";
+    // Сколько сегментов архива хранить на диске; 0 — не удалять старые
+    private static final String LOG_ARCHIVE_SEGMENTS_PROPERTY = "robots.log.archive.segments";
+    // Уведомления окон лога: async (по умолчанию, из фонового потока пачками) или sync
+    private static final String LOG_DISPATCH_PROPERTY = "robots.log.dispatch";
+    // Защита от флуда (схлопывание повторов, ограничение частоты); отключается значением false
+    private static final String LOG_FLOOD_GUARD_PROPERTY = "robots.log.flood.guard";
+    private static final int DEFAULT_CAPACITY = 20;
+    // Режим по умолчанию прежний; LOCK_FREE и COMPACT включаются свойством robots.log.mode
+    private static final CircularLogBuffer.Mode DEFAULT_MODE = CircularLogBuffer.Mode.LOCKING;
+
+    private static final LogWindowSource defaultLogSource = createDefaultLogSource();
+
+    // Путь к файлу лога; если свойство не задано, лог хранится только в памяти
+    private static final String LOG_FILE_PROPERTY = "robots.log.file";
+    private static FileLogAppender fileAppender;
+
+    // Минимальный уровень (Trace, Debug, Info, Warning, Error, Fatal), по умолчанию Trace
+    private static final String LOG_LEVEL_PROPERTY = "robots.log.level";
+    private static volatile int minLevel = LogLevel.Trace.level();
+
+    static {
+        String level = System.getProperty(LOG_LEVEL_PROPERTY);
+        if (level != null && !level.isEmpty()) {
+            try {
+                setLevel(LogLevel.valueOf(level));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown log level: " + level);
+            }
+        }
+        String logFile = System.getProperty(LOG_FILE_PROPERTY);
+        if (logFile != null && !logFile.isEmpty()) {
+            enableFileLogging(Paths.get(logFile));
+        }
+    }
 
     private Logger() {}
 
+    private static LogWindowSource createDefaultLogSource() {
+        int capacity = DEFAULT_CAPACITY;
+        String capacityValue = System.getProperty(LOG_CAPACITY_PROPERTY);
+        if (capacityValue != null && !capacityValue.isEmpty()) {
+            try {
+                capacity = Integer.parseInt(capacityValue.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid log capacity: " + capacityValue);
+            }
+        }
+        if (capacity <= 0) {
+            System.err.println("Invalid log capacity: " + capacity);
+            capacity = DEFAULT_CAPACITY;
+        }
+        CircularLogBuffer.Mode mode = DEFAULT_MODE;
+        String modeValue = System.getProperty(LOG_MODE_PROPERTY);
+        if (modeValue != null && !modeValue.isEmpty()) {
+            try {
+                mode = CircularLogBuffer.Mode.valueOf(modeValue.trim());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown log buffer mode: " + modeValue);
+            }
+        }
+        LogWindowSource source = new LogWindowSource(capacity, mode);
+        if (!"sync".equalsIgnoreCase(System.getProperty(LOG_DISPATCH_PROPERTY, "async").trim())) {
+            source.enableAsyncDispatch(LogDispatcher.DEFAULT_MAX_BATCH, LogDispatcher.DEFAULT_MAX_DELAY);
+        }
+        if (!"false".equalsIgnoreCase(System.getProperty(LOG_FLOOD_GUARD_PROPERTY, "true").trim())) {
+            source.setFloodGuard(new LogFloodGuard());
+        }
+        try {
+            source.getMetrics().register(LogMetrics.DEFAULT_OBJECT_NAME);
+        } catch (JMException e) {
+            System.err.println("Failed to register log metrics: " + e.getMessage());
+        }
+        String archiveDir = System.getProperty(LOG_ARCHIVE_PROPERTY);
+        if (archiveDir != null && !archiveDir.isEmpty()) {
+            int maxSegments = LogArchive.DEFAULT_MAX_SEGMENTS;
+            String segmentsValue = System.getProperty(LOG_ARCHIVE_SEGMENTS_PROPERTY);
+            if (segmentsValue != null && !segmentsValue.isEmpty()) {
+                try {
+                    maxSegments = Integer.parseInt(segmentsValue.trim());
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid log archive segment limit: " + segmentsValue);
+                }
+            }
+            if (maxSegments < 0) {
+                System.err.println("Invalid log archive segment limit: " + maxSegments);
+                maxSegments = LogArchive.DEFAULT_MAX_SEGMENTS;
+            }
+            try {
+                source.getBuffer().attachArchive(new LogArchive(Paths.get(archiveDir),
+                        LogArchive.DEFAULT_SEGMENT_BYTES, maxSegments));
+            } catch (IOException e) {
+                System.err.println("Failed to open log archive " + archiveDir + ": " + e.getMessage());
+            }
+        }
+        return source;
+    }
+
+    // Включает асинхронную запись лога в файл (предыдущий файл закрывается)
+    public static synchronized void enableFileLogging(Path file) {
+        closeFileAppender();
+        try {
+            fileAppender = new FileLogAppender(file, FileLogAppender.OverflowPolicy.SAMPLE);
+            defaultLogSource.addAppender(fileAppender);
+        } catch (IOException e) {
+            System.err.println("Failed to open log file " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Дописывает сводку повторов и очередь на диск, закрывает файл лога, сбрасывает архив и останавливает рассылку
+    public static synchronized void shutdown() {
+        LogFloodGuard guard = defaultLogSource.getFloodGuard();
+        if (guard != null) {
+            guard.flush(defaultLogSource);
+        }
+        closeFileAppender();
+        defaultLogSource.disableAsyncDispatch();
+        LogArchive archive = defaultLogSource.getBuffer().getArchive();
+        if (archive != null) {
+            archive.close();
+        }
+    }
+
+    private static void closeFileAppender() {
+        if (fileAppender != null) {
+            defaultLogSource.removeAppender(fileAppender);
+            fileAppender.close();
+            fileAppender = null;
+        }
+    }
+
+    // Минимальный уровень, который попадает в лог; можно менять во время работы
+    public static void setLevel(LogLevel level) {
+        minLevel = level.level();
+    }
+
+    public static LogLevel getLevel() {
+        return LogLevel.values()[minLevel];
+    }
+
+    public static boolean isEnabled(LogLevel level) {
+        return level.level() >= minLevel;
+    }
+
+    public static boolean isTraceEnabled() {
+        return LogLevel.Trace.level() >= minLevel;
+    }
+
+    public static boolean isDebugEnabled() {
+        return LogLevel.Debug.level() >= minLevel;
+    }
+
+    public static boolean isInfoEnabled() {
+        return LogLevel.Info.level() >= minLevel;
+    }
+
+    public static void log(LogLevel level, String message) {
+        if (isEnabled(level)) {
+            defaultLogSource.append(level, message);
+        }
+    }
+
+    // Сообщение строится только если уровень включён
+    public static void log(LogLevel level, Supplier<String> message) {
+        if (isEnabled(level)) {
+            defaultLogSource.append(level, message.get());
+        }
+    }
+
+    // Шаблон в формате String.format; форматирование только если уровень включён
+    public static void log(LogLevel level, String format, Object... args) {
+        if (isEnabled(level)) {
+            defaultLogSource.append(level, String.format(format, args));
+        }
+    }
+
     public static void trace(String message) {
-        defaultLogSource.append(LogLevel.Trace, message);
+        log(LogLevel.Trace, message);
+    }
+
+    public static void trace(Supplier<String> message) {
+        log(LogLevel.Trace, message);
+    }
+
+    public static void trace(String format, Object... args) {
+        log(LogLevel.Trace, format, args);
     }
 
     public static void debug(String message) {
-        defaultLogSource.append(LogLevel.Debug, message);
+        log(LogLevel.Debug, message);
+    }
+
+    public static void debug(Supplier<String> message) {
+        log(LogLevel.Debug, message);
+    }
+
+    public static void debug(String format, Object... args) {
+        log(LogLevel.Debug, format, args);
     }
 
     public static void info(String message) {
-        defaultLogSource.append(LogLevel.Info, message);
+        log(LogLevel.Info, message);
+    }
+
+    public static void info(Supplier<String> message) {
+        log(LogLevel.Info, message);
+    }
+
+    public static void info(String format, Object... args) {
+        log(LogLevel.Info, format, args);
     }
 
     public static void warn(String message) {
-        defaultLogSource.append(LogLevel.Warning, message);
+        log(LogLevel.Warning, message);
+    }
+
+    public static void warn(Supplier<String> message) {
+        log(LogLevel.Warning, message);
+    }
+
+    public static void warn(String format, Object... args) {
+        log(LogLevel.Warning, format, args);
     }
 
     public static void error(String message) {
-        defaultLogSource.append(LogLevel.Error, message);
+        log(LogLevel.Error, message);
+    }
+
+    public static void error(Supplier<String> message) {
+        log(LogLevel.Error, message);
+    }
+
+    public static void error(String format, Object... args) {
+        log(LogLevel.Error, format, args);
     }
 
     public static void fatal(String message) {
-        defaultLogSource.append(LogLevel.Fatal, message);
+        log(LogLevel.Fatal, message);
+    }
+
+    public static void fatal(Supplier<String> message) {
+        log(LogLevel.Fatal, message);
+    }
+
+    public static void fatal(String format, Object... args) {
+        log(LogLevel.Fatal, format, args);
     }
 
     public static LogWindowSource getDefaultLogSource() {
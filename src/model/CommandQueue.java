@@ -0,0 +1,61 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/* Ограниченная очередь без блокировок: писать могут любые потоки, читает только
+поток симуляции. Кольцо из capacity (степень двойки) ячеек. Писатель захватывает
+номер CAS-ом по tail, если до читателя меньше capacity ячеек, и кладёт команду
+в ячейку; читатель забирает команды по head, пока не встретит пустую ячейку
+(писатель уже захватил номер, но ещё не положил команду — она достанется
+следующему шагу), очищает ячейку и только потом сдвигает head. Полная очередь
+не ждёт: offer возвращает false, и отправитель решает, повторить или отбросить.
+*/
+final class CommandQueue {
+    private final AtomicReferenceArray<RobotCommand> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // Следующий номер для писателя
+    private volatile long head; // Следующий номер для читателя; пишет только читатель
+
+    CommandQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Queue capacity must be a power of two");
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    boolean offer(RobotCommand command) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head > mask) {
+                return false; // Читатель ещё не освободил ячейку
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.set((int) claimed & mask, command);
+        return true;
+    }
+
+    // Только поток-читатель; null, если очередь пуста или команда ещё не положена
+    RobotCommand poll() {
+        long current = head;
+        int slot = (int) current & mask;
+        RobotCommand command = slots.get(slot);
+        if (command == null) {
+            return null;
+        }
+        slots.lazySet(slot, null);
+        head = current + 1; // volatile-запись после очистки: писатель увидит ячейку пустой
+        return command;
+    }
+
+    boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    int size() {
+        long consumed = head; // Сначала head: он не обгоняет прочитанный после него tail
+        return (int) (tail.get() - consumed);
+    }
+}
@@ -0,0 +1,132 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/* Запуск симуляции без окон и без ожидания реального времени — для регрессионных
+прогонов в CI и пакетных расчётов на серверах без дисплея.
+    java model.HeadlessRunner scenario.txt [--steps N] [--all-steps] [--summary]
+По умолчанию шаги идут, пока все роботы не доедут до последних целей, но не больше
+N (из сценария или --steps); --all-steps выполняет ровно N шагов. Печатает итоговое
+состояние каждого робота (без --summary) и время работы.
+Код выхода: 0 — все роботы у последних целей, 2 — нет, 1 — ошибка сценария.
+*/
+public class HeadlessRunner {
+    public static final class Result {
+        public final long steps;
+        public final boolean allReached;
+        public final long wallNanos;
+        public final long maxStepNanos;
+        public final double simulatedSeconds;
+
+        Result(long steps, boolean allReached, long wallNanos, long maxStepNanos, double simulatedSeconds) {
+            this.steps = steps;
+            this.allReached = allReached;
+            this.wallNanos = wallNanos;
+            this.maxStepNanos = maxStepNanos;
+            this.simulatedSeconds = simulatedSeconds;
+        }
+    }
+
+    /* Выполняет до maxSteps шагов подряд в вызывающем потоке.
+    С untilReached останавливается на первом шаге, на котором никто не сдвинулся;
+    этот шаг в steps не входит.
+    */
+    public static Result run(RobotSwarm swarm, double dt, long maxSteps, boolean untilReached) {
+        long start = System.nanoTime();
+        long maxStepNanos = 0;
+        long steps = 0;
+        boolean settled = false;
+        for (long tick = 0; tick < maxSteps; tick++) {
+            long stepStart = System.nanoTime();
+            swarm.step(tick, dt);
+            maxStepNanos = Math.max(maxStepNanos, System.nanoTime() - stepStart);
+            if (swarm.getMovingCount() == 0) {
+                settled = true;
+                if (untilReached) {
+                    break;
+                }
+            } else {
+                steps = tick + 1;
+                settled = false;
+            }
+        }
+        if (!untilReached) {
+            steps = maxSteps;
+        }
+        long wallNanos = System.nanoTime() - start;
+        return new Result(steps, settled && countReached(swarm) == swarm.size(), wallNanos, maxStepNanos, steps * dt);
+    }
+
+    public static int countReached(RobotSwarm swarm) {
+        int reached = 0;
+        for (int i = 0; i < swarm.size(); i++) {
+            if (isReached(swarm, i)) {
+                reached++;
+            }
+        }
+        return reached;
+    }
+
+    private static boolean isReached(RobotSwarm swarm, int index) {
+        double dx = swarm.getGoalX(index) - swarm.getX(index);
+        double dy = swarm.getGoalY(index) - swarm.getY(index);
+        return Math.sqrt(dx * dx + dy * dy) < RobotSwarm.ARRIVAL_DISTANCE;
+    }
+
+    public static void main(String[] args) {
+        Path scenarioFile = null;
+        Long steps = null;
+        boolean allSteps = false;
+        boolean summary = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--steps" -> steps = Long.parseLong(args[++i]);
+                case "--all-steps" -> allSteps = true;
+                case "--summary" -> summary = true;
+                default -> scenarioFile = Path.of(args[i]);
+            }
+        }
+        if (scenarioFile == null) {
+            System.err.println("Usage: java model.HeadlessRunner scenario.txt [--steps N] [--all-steps] [--summary]");
+            System.exit(1);
+        }
+
+        RobotSwarm swarm;
+        Scenario scenario;
+        try {
+            scenario = Scenario.load(scenarioFile);
+            swarm = scenario.createSwarm();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot load scenario " + scenarioFile + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        long maxSteps = steps != null ? steps : scenario.getMaxSteps();
+        Result result = run(swarm, scenario.getDt(), maxSteps, !allSteps);
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024));
+        if (!summary) {
+            for (int i = 0; i < swarm.size(); i++) {
+                out.printf(Locale.ROOT, "robot %d x=%.3f y=%.3f direction=%.4f goal=%.3f,%.3f reached=%b%n",
+                        i, swarm.getX(i), swarm.getY(i), swarm.getDirection(i),
+                        swarm.getGoalX(i), swarm.getGoalY(i), isReached(swarm, i));
+            }
+        }
+        double wallSeconds = result.wallNanos / 1e9;
+        out.printf(Locale.ROOT, "robots=%d reached=%d steps=%d simulated=%.3fs wall=%.3fs speedup=%.1fx "
+                        + "steps/s=%.0f avg_step=%.1fus max_step=%.1fus%n",
+                swarm.size(), countReached(swarm), result.steps, result.simulatedSeconds, wallSeconds,
+                result.simulatedSeconds / wallSeconds, result.steps / wallSeconds,
+                result.steps == 0 ? 0 : result.wallNanos / 1e3 / result.steps, result.maxStepNanos / 1e3);
+        out.flush();
+        System.exit(countReached(swarm) == swarm.size() ? 0 : 2);
+    }
+}
@@ -0,0 +1,104 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Карта препятствий: поле разбито на квадратные ячейки, занятая ячейка — один бит.
+Биты лежат в AtomicLongArray, поэтому окно может ставить препятствия из потока
+Swing, пока планировщик ищет путь в своём потоке. Каждое изменение увеличивает
+версию карты — по ней планировщик понимает, что сохранённые пути устарели.
+*/
+public class OccupancyGrid {
+    private final int width;
+    private final int height;
+    private final double cellSize;
+    private final AtomicLongArray bits;
+    private final AtomicLong version = new AtomicLong();
+
+    public OccupancyGrid(int width, int height, double cellSize) {
+        if (width <= 0 || height <= 0 || cellSize <= 0) {
+            throw new IllegalArgumentException("Grid size and cell size must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.bits = new AtomicLongArray((width * height + 63) / 64);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int cellX(double x) {
+        return (int) Math.floor(x / cellSize);
+    }
+
+    public int cellY(double y) {
+        return (int) Math.floor(y / cellSize);
+    }
+
+    public boolean contains(int cx, int cy) {
+        return cx >= 0 && cy >= 0 && cx < width && cy < height;
+    }
+
+    // Ячейки за пределами карты считаются свободными
+    public boolean isBlocked(int cx, int cy) {
+        if (!contains(cx, cy)) {
+            return false;
+        }
+        int cell = cy * width + cx;
+        return (bits.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    boolean isBlocked(int cell) {
+        return (bits.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    public void setBlocked(int cx, int cy, boolean blocked) {
+        if (!contains(cx, cy)) {
+            return;
+        }
+        int cell = cy * width + cx;
+        long mask = 1L << cell;
+        long previous = blocked
+                ? bits.getAndAccumulate(cell >>> 6, mask, (word, m) -> word | m)
+                : bits.getAndAccumulate(cell >>> 6, mask, (word, m) -> word & ~m);
+        if (((previous & mask) != 0) != blocked) {
+            version.incrementAndGet();
+        }
+    }
+
+    // Занимает все ячейки, которые задевает прямоугольник в координатах поля
+    public void blockRect(double x, double y, double rectWidth, double rectHeight) {
+        int fromX = Math.max(0, cellX(x));
+        int fromY = Math.max(0, cellY(y));
+        // Правая и нижняя границы прямоугольника не занимают следующую ячейку
+        int toX = Math.min(width - 1, (int) Math.ceil((x + rectWidth) / cellSize) - 1);
+        int toY = Math.min(height - 1, (int) Math.ceil((y + rectHeight) / cellSize) - 1);
+        for (int cy = fromY; cy <= toY; cy++) {
+            for (int cx = fromX; cx <= toX; cx++) {
+                setBlocked(cx, cy, true);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < bits.length(); i++) {
+            bits.set(i, 0);
+        }
+        version.incrementAndGet();
+    }
+
+    // Растёт при каждом изменении карты
+    public long getVersion() {
+        return version.get();
+    }
+}
@@ -0,0 +1,310 @@
+package model;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/* Поиск пути по карте препятствий алгоритмом A* (8 направлений, углы препятствий не срезаются).
+Состояние поиска — примитивные массивы по номеру ячейки: стоимость, родитель и
+номер поиска, в котором ячейка открыта или закрыта; смена номера поиска заменяет
+очистку массивов. Открытое множество — двоичная куча на массивах int/double.
+Найденный путь выпрямляется по прямой видимости и сохраняется в LRU-кэше по паре
+(ячейка старта, ячейка цели), так что повторный щелчок в ту же точку не ищется заново.
+Поиск идёт в собственном потоке планировщика и не задерживает цикл симуляции.
+*/
+public class PathPlanner implements Closeable {
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private static final double DIAGONAL = Math.sqrt(2);
+    private static final int[] STEP_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] STEP_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int[] UNREACHABLE = new int[0]; // Отметка в кэше: пути нет
+
+    private final OccupancyGrid grid;
+    private final int width;
+    private final int nodes;
+
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] opened; // Номер поиска, в котором ячейка попала в открытое множество
+    private final int[] closed;
+    private final int[] trace; // Ячейки найденного пути от цели к старту
+    private int search;
+    private int[] heapNodes = new int[256];
+    private double[] heapKeys = new double[256];
+    private int heapSize;
+
+    private final Map<Long, int[]> cache;
+    private long cacheVersion = -1;
+    private final ExecutorService executor;
+
+    // Статистика; пишется под блокировкой планировщика
+    private volatile long cacheHits;
+    private volatile long cacheMisses;
+    private volatile int lastExpanded;
+
+    public PathPlanner(OccupancyGrid grid) {
+        this(grid, DEFAULT_CACHE_SIZE);
+    }
+
+    public PathPlanner(OccupancyGrid grid, int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.nodes = grid.getWidth() * grid.getHeight();
+        cost = new double[nodes];
+        parent = new int[nodes];
+        opened = new int[nodes];
+        closed = new int[nodes];
+        trace = new int[nodes];
+        cache = new LinkedHashMap<>(cacheSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "robot_path_planner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public OccupancyGrid getGrid() {
+        return grid;
+    }
+
+    // Ищет путь в потоке планировщика; результат тот же, что у plan
+    public CompletableFuture<double[]> planAsync(double startX, double startY, double goalX, double goalY) {
+        return CompletableFuture.supplyAsync(() -> plan(startX, startY, goalX, goalY), executor);
+    }
+
+    /* Путевые точки от (startX, startY) до цели: массив x0, y0, x1, y1, ...,
+    последняя точка — сама цель. null, если цель занята или до неё не добраться.
+    Вне карты препятствий нет, поэтому туда робот едет по прямой.
+    */
+    public synchronized double[] plan(double startX, double startY, double goalX, double goalY) {
+        int startCellX = grid.cellX(startX);
+        int startCellY = grid.cellY(startY);
+        int goalCellX = grid.cellX(goalX);
+        int goalCellY = grid.cellY(goalY);
+        if (!grid.contains(startCellX, startCellY) || !grid.contains(goalCellX, goalCellY)) {
+            return new double[] {goalX, goalY};
+        }
+        if (grid.isBlocked(goalCellX, goalCellY)) {
+            return null;
+        }
+        long version = grid.getVersion();
+        if (version != cacheVersion) {
+            cache.clear(); // Карта изменилась — сохранённые пути могли стать непроходимыми
+            cacheVersion = version;
+        }
+        int start = startCellY * width + startCellX;
+        int goal = goalCellY * width + goalCellX;
+        long key = (long) start * nodes + goal;
+        int[] cells = cache.get(key);
+        if (cells != null) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+            cells = search(start, goal);
+            cache.put(key, cells);
+        }
+        if (cells == UNREACHABLE) {
+            return null;
+        }
+        double[] waypoints = new double[cells.length * 2];
+        double cellSize = grid.getCellSize();
+        for (int i = 0; i < cells.length - 1; i++) {
+            waypoints[2 * i] = (cells[i] % width + 0.5) * cellSize;
+            waypoints[2 * i + 1] = (cells[i] / width + 0.5) * cellSize;
+        }
+        waypoints[waypoints.length - 2] = goalX; // Последняя точка — не центр ячейки, а место щелчка
+        waypoints[waypoints.length - 1] = goalY;
+        return waypoints;
+    }
+
+    // Ячейки выпрямленного пути без стартовой, последняя — цель; UNREACHABLE, если пути нет
+    private int[] search(int start, int goal) {
+        if (start == goal) {
+            return new int[] {goal};
+        }
+        search++;
+        heapSize = 0;
+        int expanded = 0;
+        int goalX = goal % width;
+        int goalY = goal / width;
+        cost[start] = 0;
+        parent[start] = -1;
+        opened[start] = search;
+        push(start, heuristic(start % width, start / width, goalX, goalY));
+        try {
+            while (heapSize > 0) {
+                int node = pop();
+                if (closed[node] == search) {
+                    continue; // Устаревшая копия в куче: ячейку уже достали с меньшей стоимостью
+                }
+                closed[node] = search;
+                expanded++;
+                if (node == goal) {
+                    return smooth(start, goal);
+                }
+                int x = node % width;
+                int y = node / width;
+                for (int direction = 0; direction < STEP_X.length; direction++) {
+                    int nextX = x + STEP_X[direction];
+                    int nextY = y + STEP_Y[direction];
+                    if (!grid.contains(nextX, nextY)) {
+                        continue;
+                    }
+                    int next = nextY * width + nextX;
+                    if (closed[next] == search || grid.isBlocked(next)) {
+                        continue;
+                    }
+                    boolean diagonal = direction >= 4;
+                    if (diagonal && (grid.isBlocked(nextX, y) || grid.isBlocked(x, nextY))) {
+                        continue; // Не срезаем угол препятствия
+                    }
+                    double nextCost = cost[node] + (diagonal ? DIAGONAL : 1);
+                    if (opened[next] != search || nextCost < cost[next]) {
+                        opened[next] = search;
+                        cost[next] = nextCost;
+                        parent[next] = node;
+                        push(next, nextCost + heuristic(nextX, nextY, goalX, goalY));
+                    }
+                }
+            }
+            return UNREACHABLE;
+        } finally {
+            lastExpanded = expanded;
+        }
+    }
+
+    // Октильное расстояние: точная длина пути по 8 направлениям без препятствий
+    private static double heuristic(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(x - goalX);
+        int dy = Math.abs(y - goalY);
+        return dx + dy + (DIAGONAL - 2) * Math.min(dx, dy);
+    }
+
+    // Оставляет только ячейки, из которых не видно следующую за ними
+    private int[] smooth(int start, int goal) {
+        int length = 0;
+        for (int node = goal; node != -1; node = parent[node]) {
+            trace[length++] = node;
+        }
+        int[] result = new int[length - 1];
+        int count = 0;
+        int anchor = start;
+        for (int i = length - 2; i >= 0; i--) {
+            if (i == 0 || !lineOfSight(anchor, trace[i - 1])) {
+                result[count++] = trace[i];
+                anchor = trace[i];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    // Свободны ли все ячейки, через которые проходит отрезок между центрами двух ячеек
+    private boolean lineOfSight(int from, int to) {
+        int x = from % width;
+        int y = from / width;
+        int dx = Math.abs(to % width - x);
+        int dy = Math.abs(to / width - y);
+        int stepX = to % width > x ? 1 : -1;
+        int stepY = to / width > y ? 1 : -1;
+        int error = dx - dy;
+        dx *= 2;
+        dy *= 2;
+        for (int remaining = 1 + (dx + dy) / 2; remaining > 0; remaining--) {
+            if (grid.isBlocked(x, y)) {
+                return false;
+            }
+            if (error > 0) {
+                x += stepX;
+                error -= dy;
+            } else if (error < 0) {
+                y += stepY;
+                error += dx;
+            } else {
+                // Отрезок проходит точно через угол — обе соседние ячейки должны быть свободны
+                if (grid.isBlocked(x + stepX, y) || grid.isBlocked(x, y + stepY)) {
+                    return false;
+                }
+                x += stepX;
+                y += stepY;
+                error += dx - dy;
+                remaining--;
+            }
+        }
+        return true;
+    }
+
+    private void push(int node, double key) {
+        if (heapSize == heapNodes.length) {
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKeys[up] <= key) {
+                break;
+            }
+            heapNodes[i] = heapNodes[up];
+            heapKeys[i] = heapKeys[up];
+            i = up;
+        }
+        heapNodes[i] = node;
+        heapKeys[i] = key;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        int lastNode = heapNodes[--heapSize];
+        double lastKey = heapKeys[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= lastKey) {
+                break;
+            }
+            heapNodes[i] = heapNodes[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+        heapNodes[i] = lastNode;
+        heapKeys[i] = lastKey;
+        return top;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    // Сколько ячеек раскрыл последний поиск (без учёта попаданий в кэш)
+    public int getLastExpanded() {
+        return lastExpanded;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
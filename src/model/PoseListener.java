@@ -0,0 +1,10 @@
+package model;
+
+/* Получатель изменений робота. Вызывается в потоке симуляции после шага, на котором
+положение, направление, цель или путь робота изменились; стоящий робот не оповещает.
+Обработчик должен быть коротким — например, передать снимок в другой поток.
+*/
+@FunctionalInterface
+public interface PoseListener {
+    void poseChanged(RobotPose pose);
+}
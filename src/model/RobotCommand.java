@@ -0,0 +1,86 @@
+package model;
+
+import java.util.concurrent.CompletableFuture;
+
+/* Команда роботу из очереди RobotSwarm. Команды применяются потоком симуляции
+в начале шага в порядке поступления, поэтому последовательность «цель, ещё точка,
+ещё точка» от одного отправителя не перемешивается и не гонится с шагом.
+Массив точек после создания команды не меняется.
+RobotSwarm.submit присваивает команде поколение маршрута: замена и отмена начинают
+новое поколение, добавление продолжает текущее. Команда старого поколения, пришедшая
+после команды нового (например, путь, который планировщик нашёл уже после отмены),
+отбрасывается.
+*/
+public final class RobotCommand {
+    enum Kind {
+        REPLACE, // Новый путь вместо текущего
+        APPEND,  // Точки в конец текущего пути
+        CANCEL   // Остановиться там, где робот сейчас
+    }
+
+    final Kind kind;
+    final int index;
+    final double[] waypoints;
+    final long generation;
+    final CompletableFuture<double[]> stopped; // У отмены: куда встал робот, заполняет поток симуляции
+
+    private RobotCommand(Kind kind, int index, double[] waypoints, long generation,
+                         CompletableFuture<double[]> stopped) {
+        this.kind = kind;
+        this.index = index;
+        this.waypoints = waypoints;
+        this.generation = generation;
+        this.stopped = stopped;
+    }
+
+    // Одна цель вместо текущего пути
+    public static RobotCommand target(int index, double tx, double ty) {
+        return new RobotCommand(Kind.REPLACE, index, new double[] {tx, ty}, 0, null);
+    }
+
+    // Путь x0, y0, x1, y1, ... вместо текущего (копируется)
+    public static RobotCommand path(int index, double[] waypoints) {
+        return new RobotCommand(Kind.REPLACE, index, copyPoints(waypoints), 0, null);
+    }
+
+    // Точки x0, y0, ... после последней точки текущего пути (копируются)
+    public static RobotCommand append(int index, double[] waypoints) {
+        return new RobotCommand(Kind.APPEND, index, copyPoints(waypoints), 0, null);
+    }
+
+    public static RobotCommand cancel(int index) {
+        return new RobotCommand(Kind.CANCEL, index, null, 0, null);
+    }
+
+    // Команда с найденным планировщиком путём, который никому больше не передаётся
+    static RobotCommand planned(Kind kind, int index, double[] waypoints, long generation) {
+        return new RobotCommand(kind, index, waypoints, generation, null);
+    }
+
+    RobotCommand withGeneration(long generation, CompletableFuture<double[]> stopped) {
+        return new RobotCommand(kind, index, waypoints, generation, stopped);
+    }
+
+    private static double[] copyPoints(double[] waypoints) {
+        if (waypoints.length < 2 || waypoints.length % 2 != 0) {
+            throw new IllegalArgumentException("Path must contain whole points");
+        }
+        return waypoints.clone();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    // Последняя точка маршрута после команды; у отмены неизвестна до применения
+    double[] lastPoint() {
+        return waypoints == null ? null
+                : new double[] {waypoints[waypoints.length - 2], waypoints[waypoints.length - 1]};
+    }
+
+    @Override
+    public String toString() {
+        return "RobotCommand[" + kind + " robot " + index
+                + (waypoints == null ? "" : ", " + waypoints.length / 2 + " points") + "]";
+    }
+}
@@ -1,52 +1,276 @@
 package model;
 
-import java.util.Observable;
-import java.util.Timer;
-import java.util.TimerTask;
-
-public class RobotModel extends Observable {
-    private double x = 100;
-    private double y = 100;
-    private double direction = 0;
-    private double targetX = 150;
-    private double targetY = 100;
-    private final Timer timer = new Timer("robot_timer", true);
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/* Один робот. Состояние хранится в RobotSwarm: отдельная модель — это рой
+из одного робота со своим циклом симуляции, а RobotSwarm.view(index) даёт такую же
+модель для робота из большого роя (без своего цикла).
+Своя модель заводит и карту препятствий с планировщиком пути, поэтому setTarget
+объезжает препятствия; путь ищется в потоке планировщика.
+Состояние для других потоков — RobotPose: поток симуляции после шага, изменившего
+робота, публикует новый снимок через volatile-поле, и геттеры читают только его.
+Тогда же вызываются PoseListener; если робот стоит, ни снимка, ни оповещений нет.
+*/
+public class RobotModel {
+    // Прежний таймер сдвигал робота на 1 единицу за 30 мс
+    public static final double VELOCITY = 1000.0 / 30;
+    // Карта препятствий своей модели: 200 x 200 ячеек по 10 пикселей
+    public static final int MAP_CELLS = 200;
+    public static final double MAP_CELL_SIZE = 10;
+
+    private final RobotSwarm swarm;
+    private final int index;
+    private final SimulationLoop simulationLoop; // null у представления робота из чужого роя
+    private volatile RobotPose pose;
+    private final CopyOnWriteArrayList<PoseListener> listeners = new CopyOnWriteArrayList<>();
+    private TrajectoryRecorder recorder; // Меняется только под блокировкой модели
+    private final List<double[]> goals = new ArrayList<>(); // Цели маршрута, заданные через модель; под блокировкой списка
 
     public RobotModel() {
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                updatePosition(0.1);
-                setChanged();
-                notifyObservers();
+        swarm = new RobotSwarm(1);
+        index = swarm.addRobot(100, 100, 150, 100);
+        pose = swarm.snapshot(index, -1); // Цикл ещё не запущен
+        swarm.attach(this);
+        swarm.setPathPlanner(new PathPlanner(new OccupancyGrid(MAP_CELLS, MAP_CELLS, MAP_CELL_SIZE)));
+        simulationLoop = new SimulationLoop(swarm);
+        simulationLoop.start();
+    }
+
+    /* Представление подключается к рою сразу и публикует снимок после каждого шага,
+    изменившего робота, до shutdown. Первый снимок снимается с массивов роя при
+    создании; если он разошёлся с массивами, после ближайшего шага публикуется верный.
+    */
+    RobotModel(RobotSwarm swarm, int index) {
+        this.swarm = swarm;
+        this.index = index;
+        this.simulationLoop = null;
+        pose = swarm.snapshot(index, swarm.getLastTick());
+        swarm.attach(this);
+    }
+
+    public void addListener(PoseListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PoseListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Вызывается роем в потоке симуляции после каждого шага
+    void stepped(long tick) {
+        RobotPose previous = pose;
+        if (swarm.isUnchanged(index, previous)) {
+            return; // Робот стоит: старый снимок верен, оповещать не о чем
+        }
+        RobotPose next = swarm.snapshot(index, tick);
+        pose = next;
+        for (PoseListener listener : listeners) {
+            try {
+                listener.poseChanged(next);
+            } catch (RuntimeException e) {
+                System.err.println("Pose listener failed: " + e);
             }
-        }, 0, 30);
+        }
     }
 
-    private void updatePosition(double duration) {
-        double dx = targetX - x;
-        double dy = targetY - y;
-        double distance = Math.sqrt(dx*dx + dy*dy);
+    // Согласованное состояние робота после последнего шага; одно volatile-чтение
+    public RobotPose getPose() {
+        return pose;
+    }
 
-        if (distance < 0.5) return;
+    // Каждый геттер читает свой снимок; для нескольких значений одного шага берите getPose()
+    public double getX() { return getPose().getX(); }
+    public double getY() { return getPose().getY(); }
+    public double getDirection() { return getPose().getDirection(); }
+    public int getTargetX() { return (int) getPose().getTargetX(); }
+    public int getTargetY() { return (int) getPose().getTargetY(); }
 
-        direction = Math.atan2(dy, dx);
-        x += 10 * Math.cos(direction) * duration;
-        y += 10 * Math.sin(direction) * duration;
+    /* Цель передаётся потоку симуляции как команда через очередь роя и применяется
+    в начале шага. Если у роя есть планировщик, путь от положения из снимка ищется
+    в его потоке; недостижимая цель игнорируется. Результат — как у RobotSwarm.planTarget.
+    */
+    public CompletableFuture<Boolean> setTarget(double tx, double ty) {
+        RobotPose current = getPose();
+        synchronized (goals) {
+            goals.clear();
+            goals.add(new double[] {tx, ty});
+            return swarm.planTarget(index, current.getX(), current.getY(), tx, ty);
+        }
     }
 
-    public double getX() { return x; }
-    public double getY() { return y; }
-    public double getDirection() { return direction; }
-    public int getTargetX() { return (int)targetX; }
-    public int getTargetY() { return (int)targetY; }
+    /* Добавляет цель в конец маршрута. Отрезок ищется планировщиком от конца маршрута,
+    запрошенного раньше, — даже если тот ещё ищется, — и добавляется через очередь;
+    недостижимая цель игнорируется.
+    */
+    public CompletableFuture<Boolean> appendTarget(double tx, double ty) {
+        RobotPose current = getPose();
+        synchronized (goals) {
+            goals.add(new double[] {tx, ty});
+            return swarm.appendTarget(index, current.getTargetX(), current.getTargetY(), tx, ty);
+        }
+    }
 
-    public void setTarget(double tx, double ty) {
-        targetX = tx;
-        targetY = ty;
+    /* Ищет заново все ещё не пройденные цели маршрута, заданные через эту модель
+    (например, после изменения карты препятствий): первую — от текущего положения,
+    остальные — друг за другом. Результат — найден ли последний отрезок.
+    */
+    public CompletableFuture<Boolean> replanRoute() {
+        double[] remaining = getPose().getRemainingPath();
+        synchronized (goals) {
+            if (remaining == null || goals.isEmpty()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            List<double[]> left = new ArrayList<>(goals.subList(firstRemainingGoal(remaining), goals.size()));
+            CompletableFuture<Boolean> last = setTarget(left.get(0)[0], left.get(0)[1]);
+            for (int i = 1; i < left.size(); i++) {
+                last = appendTarget(left.get(i)[0], left.get(i)[1]);
+            }
+            return last;
+        }
+    }
+
+    // Первая цель, которая ещё есть в оставшемся пути; если ни одной — путь ещё не принят
+    private int firstRemainingGoal(double[] remaining) {
+        for (int k = 0; k < goals.size(); k++) {
+            double[] goal = goals.get(k);
+            for (int i = 0; i < remaining.length; i += 2) {
+                if (remaining[i] == goal[0] && remaining[i + 1] == goal[1]) {
+                    return k;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /* Команды через очередь роя: применяются в начале шага в порядке вызова, без
+    поиска пути (точки уже заданы). false — очередь полна, команда не принята.
+    */
+    public boolean submitTarget(double tx, double ty) {
+        return submitPath(new double[] {tx, ty});
+    }
+
+    public boolean submitPath(double[] waypoints) {
+        synchronized (goals) {
+            boolean accepted = swarm.submit(RobotCommand.path(index, waypoints));
+            if (accepted) {
+                goals.clear();
+                goals.add(lastPoint(waypoints));
+            }
+            return accepted;
+        }
+    }
+
+    public boolean appendWaypoints(double[] waypoints) {
+        synchronized (goals) {
+            boolean accepted = swarm.submit(RobotCommand.append(index, waypoints));
+            if (accepted) {
+                goals.add(lastPoint(waypoints));
+            }
+            return accepted;
+        }
+    }
+
+    // Остановиться на месте и забыть маршрут, в том числе пути, которые ещё ищутся
+    public boolean cancel() {
+        synchronized (goals) {
+            boolean accepted = swarm.submit(RobotCommand.cancel(index));
+            if (accepted) {
+                goals.clear();
+            }
+            return accepted;
+        }
+    }
+
+    private static double[] lastPoint(double[] waypoints) {
+        return new double[] {waypoints[waypoints.length - 2], waypoints[waypoints.length - 1]};
+    }
+
+    /* Через сколько секунд модельного времени робот доедет до конечной цели,
+    считая от последнего шага; 0 — уже стоит у цели. Считается сразу по пути,
+    без прогона симуляции (см. RobotPose.stepsToArrival).
+    */
+    public double getArrivalSeconds() {
+        return getArrivalSeconds(getPose());
+    }
+
+    // То же для уже прочитанного снимка этого робота
+    public double getArrivalSeconds(RobotPose pose) {
+        double dt = getStepSeconds();
+        return pose.stepsToArrival(swarm.getVelocity() * dt) * dt;
+    }
+
+    private double getStepSeconds() {
+        return simulationLoop != null ? simulationLoop.getStepSeconds() : Scenario.DEFAULT_DT;
+    }
+
+    /* Начинает записывать траекторию в файл (прежняя запись завершается).
+    Длина шага берётся у своего цикла симуляции, у робота из роя — по умолчанию.
+    */
+    public synchronized void startRecording(Path file) throws IOException {
+        stopRecording();
+        TrajectoryRecorder started = new TrajectoryRecorder(file, getStepSeconds());
+        started.begin(getPose(), swarm.getLastTick());
+        addListener(started);
+        recorder = started;
+    }
+
+    // Завершает запись на текущем шаге; без записи ничего не делает
+    public synchronized void stopRecording() throws IOException {
+        TrajectoryRecorder current = recorder;
+        if (current == null) {
+            return;
+        }
+        recorder = null;
+        removeListener(current);
+        current.finish(swarm.getLastTick() + 1);
+    }
+
+    public synchronized boolean isRecording() {
+        return recorder != null;
+    }
+
+    // Оставшиеся путевые точки x0, y0, x1, y1, ... или null
+    public double[] getRemainingPath() {
+        return getPose().getRemainingPath();
+    }
+
+    // Карта препятствий планировщика или null, если робот едет напрямую
+    public OccupancyGrid getObstacles() {
+        PathPlanner planner = swarm.getPathPlanner();
+        return planner == null ? null : planner.getGrid();
+    }
+
+    public RobotSwarm getSwarm() {
+        return swarm;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    // Управление скоростью симуляции (пауза, 1x, 10x, максимум) и её статистика; null у робота из роя
+    public SimulationLoop getSimulationLoop() {
+        return simulationLoop;
     }
 
     public void shutdown() {
-        timer.cancel();
+        try {
+            stopRecording();
+        } catch (IOException e) {
+            System.err.println("Cannot finish trajectory recording: " + e);
+        }
+        if (simulationLoop != null) {
+            simulationLoop.stop();
+            PathPlanner planner = swarm.getPathPlanner();
+            if (planner != null) {
+                planner.close();
+            }
+        }
+        swarm.detach(this);
     }
-}
\ No newline at end of file
+}
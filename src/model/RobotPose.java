@@ -0,0 +1,104 @@
+package model;
+
+import java.util.Arrays;
+
+/* Неизменяемый снимок робота после шага симуляции: положение, направление, конечная
+цель, оставшийся путь и номер шага. Поток симуляции создаёт новый снимок после
+каждого шага, изменившего робота, и публикует его через volatile-поле RobotModel,
+поэтому читатель одним чтением получает согласованные значения одного шага — без
+блокировок и без смеси x одного шага с y другого.
+*/
+public final class RobotPose {
+    private final double x;
+    private final double y;
+    private final double direction;
+    private final double targetX;
+    private final double targetY;
+    private final long tick;
+    private final double[] path; // Общий с роем массив пути; не меняется после передачи роботу
+    private final int pathCursor;
+
+    public RobotPose(double x, double y, double direction, double targetX, double targetY, long tick) {
+        this(x, y, direction, targetX, targetY, tick, null, 0);
+    }
+
+    RobotPose(double x, double y, double direction, double targetX, double targetY, long tick,
+              double[] path, int pathCursor) {
+        this.x = x;
+        this.y = y;
+        this.direction = direction;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.tick = tick;
+        this.path = path;
+        this.pathCursor = pathCursor;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getDirection() {
+        return direction;
+    }
+
+    // Конечная цель — последняя точка пути
+    public double getTargetX() {
+        return targetX;
+    }
+
+    public double getTargetY() {
+        return targetY;
+    }
+
+    // Номер шага, на котором робот последний раз изменился; -1 — до первого шага
+    public long getTick() {
+        return tick;
+    }
+
+    // Оставшиеся путевые точки x0, y0, x1, y1, ... (копия) или null
+    public double[] getRemainingPath() {
+        return path == null || pathCursor >= path.length ? null : Arrays.copyOfRange(path, pathCursor, path.length);
+    }
+
+    /* Сколько шагов длиной stepTravel осталось до конечной цели. Прямолинейное
+    движение интегрируется точно: за шаг робот проходит stepTravel к текущей путевой
+    точке, а последний шаг отрезка останавливается на ней, так что на отрезок длиной L
+    уходит ровно ceil(L / stepTravel) шагов. Расталкивание соседей не учитывается.
+    */
+    public long stepsToArrival(double stepTravel) {
+        if (!(stepTravel > 0)) {
+            throw new IllegalArgumentException("Step travel must be positive");
+        }
+        long steps = 0;
+        double fromX = x;
+        double fromY = y;
+        int from = path == null ? 0 : pathCursor;
+        int to = path == null ? 2 : path.length;
+        for (int i = from; i < to; i += 2) {
+            double toX = path == null ? targetX : path[i];
+            double toY = path == null ? targetY : path[i + 1];
+            double length = Math.hypot(toX - fromX, toY - fromY);
+            if (length >= RobotSwarm.ARRIVAL_DISTANCE) {
+                steps += (long) Math.ceil(length / stepTravel);
+                fromX = toX;
+                fromY = toY;
+            }
+        }
+        return steps;
+    }
+
+    boolean hasPath(double[] otherPath, int otherCursor) {
+        return path == otherPath && pathCursor == otherCursor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RobotPose[x=%.2f, y=%.2f, direction=%.3f, target=(%.2f, %.2f), tick=%d]",
+                x, y, direction, targetX, targetY, tick);
+    }
+}
@@ -0,0 +1,654 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/* Мир из многих роботов в виде структуры массивов: координаты, направление и цель
+каждого робота лежат в примитивных массивах по его номеру. Шаг делит роботов
+на куски и считает их параллельно в ForkJoinPool; задачи кусков создаются один
+раз и переиспользуются, поэтому шаг не создаёт объектов на робота.
+Отдельного робота можно показать через view(index) — это RobotModel,
+с которым работают GameVisualizer и RobotCoordinatesWindow.
+Если включено избегание столкновений, роботы хранятся в равномерной сетке
+(SpatialGrid), и каждый робот отталкивается только от соседей из ближайших ячеек.
+Цель робота — последняя точка его пути; targetX/targetY — текущая путевая точка.
+Все изменения пути (цель, путь от PathPlanner, добавление точек, отмена) передаются
+потоку симуляции одной ограниченной очередью команд (submit); в начале шага
+применяется до COMMAND_BATCH команд в порядке поступления. Поколения маршрута
+(см. RobotCommand) отбрасывают пути, найденные для уже заменённой или отменённой
+цели, а добавленные отрезки планируются от конца маршрута, запрошенного раньше них.
+*/
+public class RobotSwarm implements Simulation {
+    public static final double ARRIVAL_DISTANCE = 0.5;
+    private static final int CHUNK = 1024; // Роботов на одну задачу
+    private static final int PARALLEL_THRESHOLD = 2 * CHUNK; // Меньше — считаем в потоке симуляции
+    private static final int MAX_NEIGHBORS = 32; // Сколько соседей учитывается при расталкивании
+    public static final int COMMAND_CAPACITY = 1 << 14; // Команд в очереди, не принятых шагом
+    public static final int COMMAND_BATCH = 4096; // Команд за один шаг; остальные ждут следующего
+
+    final double[] x;
+    final double[] y;
+    final double[] direction;
+    final double[] targetX;
+    final double[] targetY;
+    private final double[][] paths; // Путевые точки x0, y0, x1, y1, ...; меняет только поток симуляции
+    private final int[] pathCursor; // Индекс текущей путевой точки в paths
+    private final CommandQueue commands = new CommandQueue(COMMAND_CAPACITY);
+    private final AtomicLongArray generations; // Последнее поколение маршрута, выданное отправителям
+    private final long[] appliedGenerations; // Поколение принятого маршрута; только поток симуляции
+    // Конец последнего запрошенного маршрута x, y; null — неизвестен (цель из addRobot).
+    // У отмены конец известен только после применения: будущее заполняет поток симуляции
+    private final AtomicReferenceArray<CompletableFuture<double[]>> routeEnds;
+    private volatile PathPlanner planner;
+    private final int capacity;
+    private volatile int count;
+    private final double velocity;
+
+    private final ForkJoinPool pool;
+    private final ChunkTask[] chunks;
+    private final StepTask stepTask = new StepTask();
+    private double currentDt; // Шаг, который считают задачи кусков
+    private Avoidance currentAvoidance;
+    private int currentCount;
+    private volatile int movingCount; // Сколько роботов сдвинулось на последнем шаге
+    private volatile boolean changedSinceStep; // Добавлены роботы или включено расталкивание
+    private volatile Runnable wakeUp = () -> { };
+    private volatile long lastTick = -1;
+    private final CopyOnWriteArrayList<RobotModel> views = new CopyOnWriteArrayList<>();
+    private final int[] neighbors = new int[MAX_NEIGHBORS]; // Для шага в потоке симуляции
+
+    // Сетка соседей и новые координаты: при расталкивании все роботы читают положения до шага
+    private static final class Avoidance {
+        final double separation; // Минимальное расстояние между центрами
+        final SpatialGrid grid;
+        final double[] nextX;
+        final double[] nextY;
+
+        Avoidance(double separation, int capacity) {
+            this.separation = separation;
+            this.grid = new SpatialGrid(separation, capacity);
+            this.nextX = new double[capacity];
+            this.nextY = new double[capacity];
+        }
+    }
+
+    private volatile Avoidance avoidance;
+
+    public RobotSwarm(int capacity) {
+        this(capacity, RobotModel.VELOCITY, ForkJoinPool.commonPool());
+    }
+
+    public RobotSwarm(int capacity, double velocity, ForkJoinPool pool) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.velocity = velocity;
+        this.pool = pool;
+        x = new double[capacity];
+        y = new double[capacity];
+        direction = new double[capacity];
+        targetX = new double[capacity];
+        targetY = new double[capacity];
+        paths = new double[capacity][];
+        pathCursor = new int[capacity];
+        generations = new AtomicLongArray(capacity);
+        appliedGenerations = new long[capacity];
+        routeEnds = new AtomicReferenceArray<>(capacity);
+        chunks = new ChunkTask[(capacity + CHUNK - 1) / CHUNK];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new ChunkTask(i * CHUNK);
+        }
+    }
+
+    // Добавляет робота и возвращает его номер
+    public int addRobot(double startX, double startY, double startTargetX, double startTargetY) {
+        return addRobot(startX, startY, startTargetX, startTargetY, null);
+    }
+
+    // Добавляет робота сразу с путём x0, y0, x1, y1, ... (массив больше не меняется вызывающим)
+    public int addRobot(double startX, double startY, double[] path) {
+        if (path.length < 2 || path.length % 2 != 0) {
+            throw new IllegalArgumentException("Path must contain whole points");
+        }
+        return addRobot(startX, startY, path[0], path[1], path);
+    }
+
+    private synchronized int addRobot(double startX, double startY, double startTargetX, double startTargetY,
+                                      double[] path) {
+        int index = count;
+        if (index == capacity) {
+            throw new IllegalStateException("Swarm is full: " + capacity);
+        }
+        x[index] = startX;
+        y[index] = startY;
+        targetX[index] = startTargetX;
+        targetY[index] = startTargetY;
+        paths[index] = path;
+        count = index + 1; // Публикуем робота после заполнения его полей
+        changedSinceStep = true;
+        wakeUp.run();
+        return index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Представление одного робота в виде RobotModel (наблюдатели оповещаются после каждого шага)
+    public RobotModel view(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Robot " + index + " of " + count);
+        }
+        return new RobotModel(this, index);
+    }
+
+    /* Включает избегание столкновений: роботы держатся не ближе 2 * robotRadius друг от друга.
+    Вызывать до запуска цикла симуляции или на паузе.
+    */
+    public void enableCollisionAvoidance(double robotRadius) {
+        Avoidance created = new Avoidance(2 * robotRadius, capacity);
+        created.grid.update(x, y, count);
+        avoidance = created;
+        changedSinceStep = true;
+        wakeUp.run();
+    }
+
+    /* Номера роботов не дальше radius от точки (x, y), кроме exclude; возвращает их число.
+    С включённым избеганием столкновений просматриваются только ближайшие ячейки сетки.
+    Сетка меняется потоком симуляции, поэтому вызывать из него или на паузе.
+    */
+    public int robotsWithin(double px, double py, double radius, int exclude, int[] out) {
+        Avoidance current = avoidance;
+        if (current != null) {
+            return current.grid.queryRadius(x, y, px, py, radius, exclude, out);
+        }
+        int found = 0;
+        int robots = count;
+        for (int i = 0; i < robots; i++) {
+            double dx = x[i] - px;
+            double dy = y[i] - py;
+            if (i != exclude && dx * dx + dy * dy <= radius * radius) {
+                if (found < out.length) {
+                    out[found] = i;
+                }
+                found++;
+            }
+        }
+        return found;
+    }
+
+    // Ближайший к точке робот (кроме exclude) не дальше maxRadius или -1
+    public int nearestRobot(double px, double py, double maxRadius, int exclude) {
+        Avoidance current = avoidance;
+        if (current != null) {
+            return current.grid.nearest(x, y, px, py, maxRadius, exclude);
+        }
+        int best = -1;
+        double bestSquared = maxRadius * maxRadius;
+        int robots = count;
+        for (int i = 0; i < robots; i++) {
+            double dx = x[i] - px;
+            double dy = y[i] - py;
+            double squared = dx * dx + dy * dy;
+            if (i != exclude && squared <= bestSquared) {
+                bestSquared = squared;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // С планировщиком setTarget через planTarget объезжает препятствия его карты
+    public void setPathPlanner(PathPlanner planner) {
+        this.planner = planner;
+    }
+
+    public PathPlanner getPathPlanner() {
+        return planner;
+    }
+
+    /* Задаёт цель с поиском пути в потоке планировщика; без планировщика — как setTarget.
+    Результат — true, если путь найден и поставлен в очередь, false, если цель недостижима,
+    очередь полна или цель успели заменить или отменить.
+    Начало пути читается из массивов роя, поэтому вызывать из потока симуляции или на паузе;
+    RobotModel передаёт начало из опубликованного снимка.
+    */
+    public CompletableFuture<Boolean> planTarget(int index, double tx, double ty) {
+        return planTarget(index, x[index], y[index], tx, ty);
+    }
+
+    CompletableFuture<Boolean> planTarget(int index, double fromX, double fromY, double tx, double ty) {
+        PathPlanner current = planner;
+        if (current == null) {
+            return CompletableFuture.completedFuture(setTarget(index, tx, ty));
+        }
+        checkIndex(index);
+        long generation = generations.incrementAndGet(index); // Пути, которые ещё ищутся, устарели
+        CompletableFuture<double[]> end = new CompletableFuture<>();
+        CompletableFuture<double[]> previous = routeEnds.getAndSet(index, end);
+        return current.planAsync(fromX, fromY, tx, ty).handle((path, error) -> {
+            RobotCommand command = path == null ? null
+                    : RobotCommand.planned(RobotCommand.Kind.REPLACE, index, path, generation);
+            boolean accepted = command != null && offerCurrent(command);
+            if (accepted) {
+                end.complete(command.lastPoint());
+            } else {
+                completeWith(end, previous); // Маршрут не изменился
+            }
+            return accepted;
+        });
+    }
+
+    /* Добавляет цель в конец маршрута с поиском отрезка в потоке планировщика.
+    Отрезок ищется от конца маршрута, запрошенного раньше (когда тот найден или, после
+    отмены, когда робот остановился); если конец неизвестен — от (fromX, fromY).
+    Результат — как у planTarget; отрезок отбрасывается, если маршрут тем временем
+    заменили или отменили.
+    */
+    public CompletableFuture<Boolean> appendTarget(int index, double fromX, double fromY, double tx, double ty) {
+        checkIndex(index);
+        long generation = generations.get(index);
+        CompletableFuture<double[]> end = new CompletableFuture<>();
+        CompletableFuture<double[]> previous = routeEnds.getAndSet(index, end);
+        CompletableFuture<double[]> start = previous != null ? previous : CompletableFuture.completedFuture(null);
+        return start.thenCompose(last -> {
+            double startX = last != null ? last[0] : fromX;
+            double startY = last != null ? last[1] : fromY;
+            PathPlanner current = planner;
+            return current == null ? CompletableFuture.completedFuture(new double[] {tx, ty})
+                    : current.planAsync(startX, startY, tx, ty);
+        }).handle((leg, error) -> {
+            RobotCommand command = leg == null ? null
+                    : RobotCommand.planned(RobotCommand.Kind.APPEND, index, leg, generation);
+            boolean accepted = command != null && offerCurrent(command);
+            if (accepted) {
+                end.complete(command.lastPoint());
+            } else {
+                completeWith(end, start);
+            }
+            return accepted;
+        });
+    }
+
+    // Найденный путь попадает в очередь, только если его поколение ещё не сменилось
+    private boolean offerCurrent(RobotCommand command) {
+        if (generations.get(command.index) != command.generation || !commands.offer(command)) {
+            return false;
+        }
+        wakeUp.run();
+        return true;
+    }
+
+    private static void completeWith(CompletableFuture<double[]> end, CompletableFuture<double[]> previous) {
+        if (previous == null) {
+            end.complete(null);
+        } else {
+            previous.whenComplete((last, error) -> end.complete(last));
+        }
+    }
+
+    /* Отдаёт роботу путь x0, y0, x1, y1, ... вместо текущего (массив копируется).
+    Путь применяется в начале следующего шага; false — очередь команд полна.
+    */
+    public boolean setPath(int index, double[] waypoints) {
+        return submit(RobotCommand.path(index, waypoints));
+    }
+
+    // Цель по прямой, без планировщика; применяется в начале следующего шага
+    public boolean setTarget(int index, double tx, double ty) {
+        return submit(RobotCommand.target(index, tx, ty));
+    }
+
+    /* Ставит команду в очередь сразу, минуя планировщик; можно вызывать из любого потока.
+    false — очередь полна (поток симуляции не успевает), команда не принята.
+    Пути, которые ещё ищет планировщик, попадут в очередь позже: после замены или
+    отмены они отбрасываются.
+    */
+    public boolean submit(RobotCommand command) {
+        int index = command.index;
+        checkIndex(index);
+        boolean cancel = command.kind == RobotCommand.Kind.CANCEL;
+        long generation = command.kind == RobotCommand.Kind.APPEND ? generations.get(index)
+                : generations.incrementAndGet(index); // Пути, которые ещё ищутся, устарели
+        CompletableFuture<double[]> end = cancel ? new CompletableFuture<>()
+                : CompletableFuture.completedFuture(command.lastPoint());
+        if (!commands.offer(command.withGeneration(generation, cancel ? end : null))) {
+            if (command.kind != RobotCommand.Kind.APPEND) {
+                // Непринятая команда ничего не меняет: возвращаем поколение, если его
+                // никто не успел сдвинуть дальше (тогда пути и так устарели)
+                generations.compareAndSet(index, generation, generation - 1);
+            }
+            return false;
+        }
+        routeEnds.set(index, end);
+        wakeUp.run();
+        return true;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Robot " + index + " of " + count);
+        }
+    }
+
+    // Сколько команд ждёт применения
+    public int getQueuedCommands() {
+        return commands.size();
+    }
+
+    // Оставшиеся точки пути включая текущую (копия) или null, если пути нет
+    public double[] getRemainingPath(int index) {
+        double[] path = paths[index];
+        int cursor = pathCursor[index];
+        return path == null || cursor >= path.length ? null : Arrays.copyOfRange(path, cursor, path.length);
+    }
+
+    // Снимок робота; вызывается потоком симуляции после шага
+    RobotPose snapshot(int index, long tick) {
+        return new RobotPose(x[index], y[index], direction[index], finalX(index), finalY(index), tick,
+                paths[index], pathCursor[index]);
+    }
+
+    // Совпадает ли снимок с текущим состоянием робота (кроме номера шага)
+    boolean isUnchanged(int index, RobotPose pose) {
+        return pose.getX() == x[index] && pose.getY() == y[index]
+                && pose.getDirection() == direction[index]
+                && pose.getTargetX() == finalX(index) && pose.getTargetY() == finalY(index)
+                && pose.hasPath(paths[index], pathCursor[index]);
+    }
+
+    private void applyCommands() {
+        for (int applied = 0; applied < COMMAND_BATCH; applied++) {
+            RobotCommand command = commands.poll();
+            if (command == null) {
+                return;
+            }
+            int i = command.index;
+            if (command.generation < appliedGenerations[i]) {
+                // Команда для уже заменённого маршрута; ждущим конца отмены отдаём нынешний конец
+                if (command.stopped != null) {
+                    command.stopped.complete(new double[] {finalX(i), finalY(i)});
+                }
+                continue;
+            }
+            appliedGenerations[i] = command.generation;
+            double[] path = switch (command.kind) {
+                case REPLACE -> command.waypoints;
+                case APPEND -> appendToPath(i, command.waypoints);
+                case CANCEL -> new double[] {x[i], y[i]};
+            };
+            paths[i] = path;
+            pathCursor[i] = 0;
+            targetX[i] = path[0];
+            targetY[i] = path[1];
+            if (command.stopped != null) {
+                command.stopped.complete(path); // Отрезки, добавленные после отмены, начнутся отсюда
+            }
+        }
+    }
+
+    // Новый массив: оставшиеся точки пути (или текущая цель) и за ними добавленные
+    private double[] appendToPath(int index, double[] waypoints) {
+        double[] path = paths[index];
+        int cursor = pathCursor[index];
+        if (path == null) {
+            path = new double[] {targetX[index], targetY[index]};
+            cursor = 0;
+        }
+        double[] joined = Arrays.copyOfRange(path, cursor, path.length + waypoints.length);
+        System.arraycopy(waypoints, 0, joined, path.length - cursor, waypoints.length);
+        return joined;
+    }
+
+    void attach(RobotModel view) {
+        views.addIfAbsent(view);
+    }
+
+    void detach(RobotModel view) {
+        views.remove(view);
+    }
+
+    @Override
+    public void step(long tick, double dt) {
+        changedSinceStep = false; // До чтения count: робот, добавленный позже, снова выставит флаг
+        int robots = count;
+        if (!commands.isEmpty()) {
+            applyCommands();
+        }
+        Avoidance current = avoidance;
+        if (current != null) {
+            current.grid.trackNew(x, y, robots);
+        }
+        if (robots < PARALLEL_THRESHOLD) {
+            movingCount = stepRange(0, robots, dt, current, neighbors);
+        } else {
+            currentDt = dt;
+            currentAvoidance = current;
+            currentCount = robots;
+            stepTask.reinitialize();
+            pool.invoke(stepTask); // Запись полей видна задачам через передачу задачи в пул
+            movingCount = stepTask.moved;
+        }
+        if (current != null) {
+            // Все роботы считали шаг по старым положениям; теперь переносим новые и обновляем сетку
+            System.arraycopy(current.nextX, 0, x, 0, robots);
+            System.arraycopy(current.nextY, 0, y, 0, robots);
+            current.grid.update(x, y, robots);
+        }
+        lastTick = tick;
+        for (RobotModel view : views) {
+            view.stepped(tick);
+        }
+    }
+
+    // Сдвигает роботов from..to-1 и возвращает, сколько из них сдвинулось
+    int stepRange(int from, int to, double dt, Avoidance current, int[] scratch) {
+        double maxTravel = velocity * dt;
+        int moved = 0;
+        for (int i = from; i < to; i++) {
+            double dx = targetX[i] - x[i];
+            double dy = targetY[i] - y[i];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            double[] path = paths[i];
+            if (distance < ARRIVAL_DISTANCE && path != null && pathCursor[i] + 2 < path.length) {
+                // Путевая точка достигнута — едем к следующей
+                int cursor = pathCursor[i] + 2;
+                pathCursor[i] = cursor;
+                targetX[i] = path[cursor];
+                targetY[i] = path[cursor + 1];
+                dx = targetX[i] - x[i];
+                dy = targetY[i] - y[i];
+                distance = Math.sqrt(dx * dx + dy * dy);
+            }
+            double moveX = 0;
+            double moveY = 0;
+            if (distance >= ARRIVAL_DISTANCE) {
+                // На последнем шаге не проскакиваем цель
+                double scale = Math.min(maxTravel, distance) / distance;
+                moveX = dx * scale;
+                moveY = dy * scale;
+            }
+            if (current == null) {
+                if (moveX != 0 || moveY != 0) {
+                    direction[i] = Math.atan2(dy, dx);
+                    x[i] += moveX;
+                    y[i] += moveY;
+                    moved++;
+                }
+                continue;
+            }
+            if (distance < ARRIVAL_DISTANCE) {
+                // Робот у конечной цели стоит и не расталкивается, иначе соседи с близкими
+                // целями толкали бы друг друга вечно и рой никогда бы не затих
+                current.nextX[i] = x[i];
+                current.nextY[i] = y[i];
+                continue;
+            }
+            double goalX = finalX(i);
+            double goalY = finalY(i);
+            boolean nearGoal = Math.hypot(goalX - x[i], goalY - y[i]) < current.separation;
+            // Отталкивание от соседей ближе separation, сильнее при большем перекрытии.
+            // Вдвое сильнее тяги к цели, чтобы на половине separation робот не поддавался встречному
+            double separation = current.separation;
+            double targetMoveX = moveX;
+            double targetMoveY = moveY;
+            int found = Math.min(scratch.length,
+                    current.grid.queryRadius(x, y, x[i], y[i], separation, i, scratch));
+            for (int k = 0; k < found; k++) {
+                int other = scratch[k];
+                if (nearGoal && Math.hypot(goalX - finalX(other), goalY - finalY(other)) < separation) {
+                    continue; // Цели ближе separation: уступать некуда, оба едут к своим целям
+                }
+                double awayX = x[i] - x[other];
+                double awayY = y[i] - y[other];
+                double gap = Math.sqrt(awayX * awayX + awayY * awayY);
+                if (gap == 0) {
+                    awayX = i < other ? -1 : 1; // Совпавшие роботы расходятся в разные стороны
+                    awayY = 0;
+                    gap = 1;
+                }
+                double push = 2 * maxTravel * (separation - gap) / separation / gap;
+                moveX += awayX * push;
+                moveY += awayY * push;
+                if (targetMoveX * awayX + targetMoveY * awayY < 0) {
+                    // Сосед впереди: принимаем вправо, иначе встречные роботы упрутся друг в друга
+                    moveX += awayY * push / 2;
+                    moveY -= awayX * push / 2;
+                }
+            }
+            double length = Math.sqrt(moveX * moveX + moveY * moveY);
+            if (length > maxTravel) {
+                moveX *= maxTravel / length;
+                moveY *= maxTravel / length;
+            }
+            if (length > 0) {
+                direction[i] = Math.atan2(moveY, moveX);
+                moved++;
+            }
+            current.nextX[i] = x[i] + moveX;
+            current.nextY[i] = y[i] + moveY;
+        }
+        return moved;
+    }
+
+    // Конечная цель по принятому пути; за шаг не меняется, поэтому её можно читать у соседей
+    private double finalX(int index) {
+        double[] path = paths[index];
+        return path == null ? targetX[index] : path[path.length - 2];
+    }
+
+    private double finalY(int index) {
+        double[] path = paths[index];
+        return path == null ? targetY[index] : path[path.length - 1];
+    }
+
+    /* Сколько роботов сдвинулось на последнем шаге; 0 — все стоят у своих целей
+    (и никого не расталкивают), так что следующие шаги ничего не изменят до новой цели.
+    */
+    public int getMovingCount() {
+        return movingCount;
+    }
+
+    /* Рой простаивает, если на последнем шаге никто не сдвинулся и с тех пор
+    не пришло ни новых путей, ни команд, ни новых роботов.
+    */
+    @Override
+    public boolean isIdle() {
+        return movingCount == 0 && !changedSinceStep && commands.isEmpty();
+    }
+
+    @Override
+    public void setWakeUp(Runnable wakeUp) {
+        this.wakeUp = wakeUp;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    // Номер последнего выполненного шага; -1 — шагов ещё не было
+    public long getLastTick() {
+        return lastTick;
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getDirection(int index) {
+        return direction[index];
+    }
+
+    public double getTargetX(int index) {
+        return targetX[index];
+    }
+
+    public double getTargetY(int index) {
+        return targetY[index];
+    }
+
+    // Конечная цель робота: последняя точка принятого пути
+    public double getGoalX(int index) {
+        return finalX(index);
+    }
+
+    public double getGoalY(int index) {
+        return finalY(index);
+    }
+
+    // Все куски шага; запускается в пуле и ждёт их завершения
+    private final class StepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        int moved;
+
+        @Override
+        protected void compute() {
+            int used = (currentCount + CHUNK - 1) / CHUNK;
+            for (int i = 0; i < used; i++) {
+                chunks[i].reinitialize();
+            }
+            for (int i = 1; i < used; i++) {
+                chunks[i].fork();
+            }
+            chunks[0].invoke(); // Первый кусок считает сам поток задачи
+            int total = chunks[0].moved;
+            for (int i = 1; i < used; i++) {
+                chunks[i].join();
+                total += chunks[i].moved;
+            }
+            moved = total;
+        }
+    }
+
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int[] scratch = new int[MAX_NEIGHBORS];
+        int moved;
+
+        ChunkTask(int from) {
+            this.from = from;
+        }
+
+        @Override
+        protected void compute() {
+            moved = stepRange(from, Math.min(from + CHUNK, currentCount), currentDt, currentAvoidance, scratch);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/* Сценарий для запуска без окон: роботы, их цели и препятствия.
+Текстовый файл, одна команда на строку, # — комментарий:
+    robot X Y TX TY [TX TY ...]   робот в (X, Y) объезжает цели по порядку
+    random N WIDTH HEIGHT SEED     N роботов со случайными стартом и целью в прямоугольнике
+    obstacle X Y WIDTH HEIGHT      препятствие; пути между целями ищет PathPlanner
+    map CELLS_X CELLS_Y CELL_SIZE  размер карты препятствий (по умолчанию как у RobotModel)
+    avoidance RADIUS               избегание столкновений с радиусом робота RADIUS
+    steps N                        предел числа шагов
+    dt SECONDS                     длина шага (по умолчанию как у SimulationLoop)
+*/
+public class Scenario {
+    public static final long DEFAULT_MAX_STEPS = 1_000_000;
+    // Тот же шаг, что у цикла симуляции с частотой по умолчанию
+    public static final double DEFAULT_DT = Math.round(1_000_000_000L / SimulationLoop.DEFAULT_TICK_RATE) / 1e9;
+
+    private final List<double[]> robots = new ArrayList<>(); // X, Y, затем цели парами
+    private final List<double[]> obstacles = new ArrayList<>();
+    private int mapWidth = RobotModel.MAP_CELLS;
+    private int mapHeight = RobotModel.MAP_CELLS;
+    private double mapCellSize = RobotModel.MAP_CELL_SIZE;
+    private double avoidanceRadius;
+    private long maxSteps = DEFAULT_MAX_STEPS;
+    private double dt = DEFAULT_DT;
+
+    public static Scenario load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    public static Scenario parse(List<String> lines) {
+        Scenario scenario = new Scenario();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                scenario.apply(line.split("\\s+"));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Scenario line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (scenario.robots.isEmpty()) {
+            throw new IllegalArgumentException("Scenario has no robots");
+        }
+        return scenario;
+    }
+
+    private void apply(String[] words) {
+        switch (words[0]) {
+            case "robot" -> {
+                if (words.length < 5 || words.length % 2 == 0) {
+                    throw new IllegalArgumentException("robot needs X Y and at least one target pair");
+                }
+                robots.add(numbers(words));
+            }
+            case "random" -> {
+                double[] args = numbers(words, 4);
+                Random random = new Random((long) args[3]);
+                for (int i = 0; i < (int) args[0]; i++) {
+                    robots.add(new double[] {
+                            random.nextDouble() * args[1], random.nextDouble() * args[2],
+                            random.nextDouble() * args[1], random.nextDouble() * args[2]});
+                }
+            }
+            case "obstacle" -> obstacles.add(numbers(words, 4));
+            case "map" -> {
+                double[] args = numbers(words, 3);
+                mapWidth = (int) args[0];
+                mapHeight = (int) args[1];
+                mapCellSize = args[2];
+            }
+            case "avoidance" -> avoidanceRadius = numbers(words, 1)[0];
+            case "steps" -> maxSteps = (long) numbers(words, 1)[0];
+            case "dt" -> dt = numbers(words, 1)[0];
+            default -> throw new IllegalArgumentException("unknown command " + words[0]);
+        }
+    }
+
+    private static double[] numbers(String[] words, int expected) {
+        if (words.length != expected + 1) {
+            throw new IllegalArgumentException(words[0] + " needs " + expected + " numbers");
+        }
+        return numbers(words);
+    }
+
+    private static double[] numbers(String[] words) {
+        double[] result = new double[words.length - 1];
+        for (int i = 1; i < words.length; i++) {
+            result[i - 1] = Double.parseDouble(words[i]); // NumberFormatException — тоже IllegalArgumentException
+        }
+        return result;
+    }
+
+    public int getRobotCount() {
+        return robots.size();
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    public double getDt() {
+        return dt;
+    }
+
+    /* Создаёт рой без цикла симуляции и раздаёт роботам пути.
+    С препятствиями каждый отрезок между целями ищется планировщиком сразу, в этом потоке.
+    */
+    public RobotSwarm createSwarm() {
+        RobotSwarm swarm = new RobotSwarm(robots.size());
+        PathPlanner planner = null;
+        if (!obstacles.isEmpty()) {
+            OccupancyGrid grid = new OccupancyGrid(mapWidth, mapHeight, mapCellSize);
+            for (double[] obstacle : obstacles) {
+                grid.blockRect(obstacle[0], obstacle[1], obstacle[2], obstacle[3]);
+            }
+            planner = new PathPlanner(grid);
+        }
+        try {
+            for (double[] robot : robots) {
+                int index = swarm.size();
+                swarm.addRobot(robot[0], robot[1], planner == null ? targets(robot) : plannedPath(planner, index, robot));
+            }
+        } finally {
+            if (planner != null) {
+                planner.close();
+            }
+        }
+        if (avoidanceRadius > 0) {
+            swarm.enableCollisionAvoidance(avoidanceRadius);
+        }
+        return swarm;
+    }
+
+    private static double[] targets(double[] robot) {
+        double[] path = new double[robot.length - 2];
+        System.arraycopy(robot, 2, path, 0, path.length);
+        return path;
+    }
+
+    private static double[] plannedPath(PathPlanner planner, int index, double[] robot) {
+        double[] path = new double[0];
+        for (int i = 2; i < robot.length; i += 2) {
+            double[] leg = planner.plan(robot[i - 2], robot[i - 1], robot[i], robot[i + 1]);
+            if (leg == null) {
+                throw new IllegalArgumentException("Robot " + index + " cannot reach " + robot[i] + ", " + robot[i + 1]);
+            }
+            double[] joined = new double[path.length + leg.length];
+            System.arraycopy(path, 0, joined, 0, path.length);
+            System.arraycopy(leg, 0, joined, path.length, leg.length);
+            path = joined;
+        }
+        return path;
+    }
+}
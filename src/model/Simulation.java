@@ -0,0 +1,16 @@
+package model;
+
+// Модель, которую SimulationLoop продвигает фиксированными шагами
+public interface Simulation {
+    // Один шаг длиной dt секунд модельного времени; tick — номер шага с нуля
+    void step(long tick, double dt);
+
+    // true, если следующий шаг ничего не изменит; тогда цикл спит до wakeUp
+    default boolean isIdle() {
+        return false;
+    }
+
+    // Цикл передаёт, как его разбудить; модель вызывает wakeUp, когда перестаёт простаивать
+    default void setWakeUp(Runnable wakeUp) {
+    }
+}
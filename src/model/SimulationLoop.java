@@ -0,0 +1,178 @@
+package model;
+
+import java.util.concurrent.locks.LockSupport;
+
+/* Цикл симуляции с фиксированным шагом.
+Модель всегда продвигается на один и тот же шаг dt = 1 / tickRate, поэтому
+результат зависит только от числа шагов, а не от того, насколько точно
+просыпается поток. Реальное время (умноженное на масштаб) копится в аккумуляторе
+и расходуется целыми шагами; если поток отстал, шаги догоняются пачкой, но не
+больше maxCatchUpSteps за раз — остаток отбрасывается и учитывается как перегрузка.
+Пока модель простаивает (Simulation.isIdle), поток спит без таймаута и не тратит
+процессор; модель будит его сама, получив новую команду. Время простоя, как и
+паузы, не догоняется: номера шагов считают только шаги, которые что-то меняли.
+*/
+public class SimulationLoop {
+    public static final double DEFAULT_TICK_RATE = 1000.0 / 30; // Прежний период таймера — 30 мс
+    public static final int DEFAULT_MAX_CATCH_UP_STEPS = 5;
+
+    // Масштабы времени
+    public static final double PAUSED = 0;
+    public static final double REAL_TIME = 1;
+    public static final double FAST = 10;
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private static final int MAX_MODE_BATCH = 1000; // Шагов подряд в режиме «как можно быстрее»
+
+    private final Simulation simulation;
+    private final long stepNanos;
+    private final double dt;
+    private final int maxCatchUpSteps;
+    private final Thread thread;
+    private volatile double timeScale = REAL_TIME;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    // Статистика; пишет только поток симуляции
+    private volatile long tick;
+    private volatile long overrunCount; // Сколько раз догонять пришлось дольше maxCatchUpSteps
+    private volatile long droppedSteps; // Шаги, отброшенные при перегрузке
+    private volatile long maxStepNanos;
+    private volatile long totalStepNanos;
+
+    public SimulationLoop(Simulation simulation) {
+        this(simulation, DEFAULT_TICK_RATE, DEFAULT_MAX_CATCH_UP_STEPS);
+    }
+
+    public SimulationLoop(Simulation simulation, double tickRate, int maxCatchUpSteps) {
+        if (tickRate <= 0 || maxCatchUpSteps <= 0) {
+            throw new IllegalArgumentException("Tick rate and catch-up steps must be positive");
+        }
+        this.simulation = simulation;
+        this.stepNanos = Math.max(1, Math.round(1_000_000_000L / tickRate));
+        this.dt = stepNanos / 1e9;
+        this.maxCatchUpSteps = maxCatchUpSteps;
+        this.thread = new Thread(this::run, "robot_simulation");
+        this.thread.setDaemon(true);
+        simulation.setWakeUp(this::wakeUp);
+    }
+
+    // Будит поток, спящий из-за простоя модели; можно вызывать из любого потока
+    public void wakeUp() {
+        LockSupport.unpark(thread);
+    }
+
+    // Спит ли поток, потому что модели нечего делать
+    public boolean isIdle() {
+        return idle;
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    // 0 — пауза, 1 — реальное время, 10 — в десять раз быстрее, бесконечность — без ожидания
+    public void setTimeScale(double timeScale) {
+        if (timeScale < 0 || Double.isNaN(timeScale)) {
+            throw new IllegalArgumentException("Time scale must not be negative");
+        }
+        this.timeScale = timeScale;
+        LockSupport.unpark(thread);
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    // Длина шага модельного времени в секундах
+    public double getStepSeconds() {
+        return dt;
+    }
+
+    public double getTickRate() {
+        return 1e9 / stepNanos;
+    }
+
+    private void run() {
+        long last = System.nanoTime();
+        double accumulator = 0; // Накопленное модельное время в наносекундах
+        while (running) {
+            double scale = timeScale;
+            if (scale == PAUSED || simulation.isIdle()) {
+                // Команда, пришедшая после проверки, не потеряется: unpark до park делает park мгновенным
+                idle = scale != PAUSED;
+                LockSupport.park(this);
+                idle = false;
+                last = System.nanoTime(); // Время паузы и простоя не догоняется
+                continue;
+            }
+            if (Double.isInfinite(scale)) {
+                for (int i = 0; i < MAX_MODE_BATCH && running && timeScale == scale && !simulation.isIdle(); i++) {
+                    step();
+                }
+                last = System.nanoTime();
+                accumulator = 0;
+                continue;
+            }
+            long now = System.nanoTime();
+            accumulator += (now - last) * scale;
+            last = now;
+            int steps = 0;
+            while (accumulator >= stepNanos && steps < maxCatchUpSteps && running) {
+                step();
+                accumulator -= stepNanos;
+                steps++;
+            }
+            if (accumulator >= stepNanos) {
+                // Не успеваем: отбрасываем отставание, чтобы не уйти в бесконечное догоняние
+                long dropped = (long) (accumulator / stepNanos);
+                droppedSteps += dropped;
+                overrunCount++;
+                accumulator -= dropped * (double) stepNanos;
+            }
+            LockSupport.parkNanos(this, (long) ((stepNanos - accumulator) / scale));
+        }
+    }
+
+    private void step() {
+        long start = System.nanoTime();
+        try {
+            simulation.step(tick, dt);
+        } catch (RuntimeException e) {
+            System.err.println("Simulation step failed: " + e);
+        }
+        long elapsed = System.nanoTime() - start;
+        totalStepNanos += elapsed;
+        if (elapsed > maxStepNanos) {
+            maxStepNanos = elapsed;
+        }
+        tick++;
+    }
+
+    // Сколько шагов выполнено
+    public long getTick() {
+        return tick;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    public long getMaxStepNanos() {
+        return maxStepNanos;
+    }
+
+    public long getAverageStepNanos() {
+        long ticks = tick;
+        return ticks == 0 ? 0 : totalStepNanos / ticks;
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+}
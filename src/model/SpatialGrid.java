@@ -0,0 +1,201 @@
+package model;
+
+import java.util.Arrays;
+
+/* Равномерная сетка для поиска соседей среди роботов роя.
+Каждая ячейка — двусвязный список номеров роботов на массивах int, поле не
+ограничено: ячейка (cx, cy) хешируется в таблицу фиксированного размера, а при
+обходе роботы из чужих ячеек с тем же хешем отсеиваются по ключу ячейки.
+Робот переносится между списками за O(1) только когда меняет ячейку, поэтому
+обновление сетки за шаг стоит O(n). Сетку меняет и читает поток симуляции.
+*/
+final class SpatialGrid {
+    private static final int NONE = -1;
+
+    private final double cellSize;
+    private final int[] heads; // Первый робот в корзине
+    private final int mask;
+    private int[] next = new int[0];
+    private int[] previous = new int[0];
+    private long[] cellKeys = new long[0]; // Ячейка, в которой записан робот
+    private int tracked; // Роботы с номерами меньше tracked уже в сетке
+
+    SpatialGrid(double cellSize, int expectedRobots) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        int buckets = Integer.highestOneBit(Math.max(16, expectedRobots) * 2 - 1) << 1;
+        heads = new int[buckets];
+        Arrays.fill(heads, NONE);
+        mask = buckets - 1;
+    }
+
+    private long cellOf(double x, double y) {
+        long cx = (long) Math.floor(x / cellSize);
+        long cy = (long) Math.floor(y / cellSize);
+        return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+    }
+
+    private int bucketOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & mask;
+    }
+
+    // Приводит сетку к текущим координатам роботов 0..count-1
+    void update(double[] xs, double[] ys, int count) {
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            long key = cellOf(xs[i], ys[i]);
+            if (i >= tracked) {
+                link(i, key);
+            } else if (cellKeys[i] != key) {
+                unlink(i);
+                link(i, key);
+            }
+        }
+        tracked = Math.max(tracked, count);
+    }
+
+    // Добавляет в сетку только роботов, появившихся после прошлого обновления
+    void trackNew(double[] xs, double[] ys, int count) {
+        if (count <= tracked) {
+            return;
+        }
+        ensureCapacity(count);
+        for (int i = tracked; i < count; i++) {
+            link(i, cellOf(xs[i], ys[i]));
+        }
+        tracked = count;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= next.length) {
+            return;
+        }
+        int size = Math.max(count, next.length * 2);
+        next = Arrays.copyOf(next, size);
+        previous = Arrays.copyOf(previous, size);
+        cellKeys = Arrays.copyOf(cellKeys, size);
+    }
+
+    private void link(int robot, long key) {
+        int bucket = bucketOf(key);
+        int head = heads[bucket];
+        next[robot] = head;
+        previous[robot] = NONE;
+        if (head != NONE) {
+            previous[head] = robot;
+        }
+        heads[bucket] = robot;
+        cellKeys[robot] = key;
+    }
+
+    private void unlink(int robot) {
+        int before = previous[robot];
+        int after = next[robot];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            heads[bucketOf(cellKeys[robot])] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+    }
+
+    /* Число роботов в круге, кроме exclude; их номера записываются в out, пока он не заполнен.
+    Не создаёт объектов, поэтому годится для шага симуляции.
+    */
+    int queryRadius(double[] xs, double[] ys, double x, double y, double radius, int exclude, int[] out) {
+        double radiusSquared = radius * radius;
+        long minX = (long) Math.floor((x - radius) / cellSize);
+        long maxX = (long) Math.floor((x + radius) / cellSize);
+        long minY = (long) Math.floor((y - radius) / cellSize);
+        long maxY = (long) Math.floor((y + radius) / cellSize);
+        int found = 0;
+        for (long cx = minX; cx <= maxX; cx++) {
+            for (long cy = minY; cy <= maxY; cy++) {
+                long key = (cx << 32) ^ (cy & 0xFFFFFFFFL);
+                for (int robot = heads[bucketOf(key)]; robot != NONE; robot = next[robot]) {
+                    if (robot == exclude || cellKeys[robot] != key) {
+                        continue;
+                    }
+                    double dx = xs[robot] - x;
+                    double dy = ys[robot] - y;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        if (found < out.length) {
+                            out[found] = robot;
+                        }
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /* Ближайший к (x, y) робот, кроме exclude, не дальше maxRadius; -1, если такого нет.
+    Поиск расширяется кольцами ячеек и останавливается, как только следующее
+    кольцо заведомо дальше уже найденного робота. Когда просмотренных ячеек
+    становится больше, чем роботов в сетке, дешевле перебрать всех роботов,
+    поэтому большой или бесконечный maxRadius не раздувает число колец.
+    */
+    int nearest(double[] xs, double[] ys, double x, double y, double maxRadius, int exclude) {
+        long centerX = (long) Math.floor(x / cellSize);
+        long centerY = (long) Math.floor(y / cellSize);
+        int best = NONE;
+        double bestSquared = maxRadius * maxRadius;
+        // В квадрате из колец 0..scanRings ячеек уже не меньше, чем роботов в сетке
+        long scanRings = (long) Math.ceil(Math.sqrt(tracked) / 2);
+        double rings = Math.min(Math.ceil(maxRadius / cellSize), scanRings + 1);
+        for (long ring = 0; ring <= rings; ring++) {
+            // Ближайшая точка кольца ring не ближе (ring - 1) ячеек от точки запроса
+            double ringDistance = (ring - 1) * cellSize;
+            if (best != NONE && ring > 0 && ringDistance * ringDistance > bestSquared) {
+                break;
+            }
+            if (ring > scanRings) {
+                return nearestLinear(xs, ys, x, y, exclude, best, bestSquared);
+            }
+            for (long cx = centerX - ring; cx <= centerX + ring; cx++) {
+                boolean edgeColumn = cx == centerX - ring || cx == centerX + ring;
+                long step = edgeColumn || ring == 0 ? 1 : 2 * ring;
+                for (long cy = centerY - ring; cy <= centerY + ring; cy += step) {
+                    long key = (cx << 32) ^ (cy & 0xFFFFFFFFL);
+                    for (int robot = heads[bucketOf(key)]; robot != NONE; robot = next[robot]) {
+                        if (robot == exclude || cellKeys[robot] != key) {
+                            continue;
+                        }
+                        double dx = xs[robot] - x;
+                        double dy = ys[robot] - y;
+                        double squared = dx * dx + dy * dy;
+                        if (squared <= bestSquared) {
+                            bestSquared = squared;
+                            best = robot;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Перебор всех роботов сетки, начиная с уже найденного кандидата best
+    private int nearestLinear(double[] xs, double[] ys, double x, double y, int exclude, int best,
+                              double bestSquared) {
+        for (int robot = 0; robot < tracked; robot++) {
+            if (robot == exclude) {
+                continue;
+            }
+            double dx = xs[robot] - x;
+            double dy = ys[robot] - y;
+            double squared = dx * dx + dy * dy;
+            if (squared <= bestSquared) {
+                bestSquared = squared;
+                best = robot;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,153 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Запись траектории робота в файл для последующего просмотра (TrajectoryReplay).
+Заголовок: MAGIC (4 байта), размер записи (2), резерв (2), номер первого шага (8),
+длина шага в секундах (8). Дальше по записи фиксированной длины на каждый шаг:
+x, y, направление, цель x, цель y — пять float. Запись шага t лежит по смещению
+HEADER_BYTES + (t - первый шаг) * RECORD_BYTES, поэтому переход к любому шагу — O(1).
+Слушатель вызывается только на шагах, где робот изменился; пропущенные шаги
+заполняются копией предыдущей записи. Записи копятся в прямом буфере и пишутся
+через канал крупными блоками. Ошибка записи останавливает запись, а не симуляцию.
+*/
+public class TrajectoryRecorder implements PoseListener, Closeable {
+    static final int MAGIC = 0x52545231; // "RTR1"
+    static final int HEADER_BYTES = 4 + 2 + 2 + 8 + 8;
+    static final int RECORD_BYTES = 5 * Float.BYTES;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final double stepSeconds;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final ByteBuffer lastRecord = ByteBuffer.allocate(RECORD_BYTES);
+    private boolean started;
+    private long firstTick;
+    private long nextTick; // Шаг, запись которого ожидается следующей
+    private boolean closed;
+
+    public TrajectoryRecorder(Path file, double stepSeconds) throws IOException {
+        this.file = file;
+        this.stepSeconds = stepSeconds;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /* Начинает запись с шага tick положением pose. Без вызова запись начнётся
+    с первого изменения робота.
+    */
+    public synchronized void begin(RobotPose pose, long tick) {
+        if (!started && !closed) {
+            record(pose, tick);
+        }
+    }
+
+    @Override
+    public synchronized void poseChanged(RobotPose pose) {
+        if (!closed && pose.getTick() >= nextTick) {
+            record(pose, pose.getTick());
+        }
+    }
+
+    private void record(RobotPose pose, long tick) {
+        try {
+            if (!started) {
+                started = true;
+                firstTick = tick;
+                nextTick = tick;
+                buffer.putInt(MAGIC).putShort((short) RECORD_BYTES).putShort((short) 0)
+                        .putLong(firstTick).putDouble(stepSeconds);
+            }
+            fillUntil(tick);
+            lastRecord.clear();
+            lastRecord.putFloat((float) pose.getX()).putFloat((float) pose.getY())
+                    .putFloat((float) pose.getDirection())
+                    .putFloat((float) pose.getTargetX()).putFloat((float) pose.getTargetY());
+            writeLastRecord();
+        } catch (IOException e) {
+            System.err.println("Trajectory recording to " + file + " stopped: " + e);
+            closeQuietly();
+        }
+    }
+
+    // Робот стоял с прошлой записи: повторяем её до шага tick (не включая)
+    private void fillUntil(long tick) throws IOException {
+        if (nextTick == firstTick) {
+            return; // Записей ещё нет
+        }
+        while (nextTick < tick) {
+            writeLastRecord();
+        }
+    }
+
+    private void writeLastRecord() throws IOException {
+        if (buffer.remaining() < RECORD_BYTES) {
+            flushBuffer();
+        }
+        lastRecord.flip();
+        buffer.put(lastRecord);
+        nextTick++;
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Сколько шагов записано
+    public synchronized long getRecordedTicks() {
+        return nextTick - firstTick;
+    }
+
+    /* Дописывает стоящего робота до шага tick (не включая) и закрывает файл,
+    чтобы запись кончалась там, где её остановили, а не на последнем движении.
+    */
+    public synchronized void finish(long tick) throws IOException {
+        if (!closed && started) {
+            fillUntil(tick);
+        }
+        close();
+    }
+
+    // Пишет накопленные записи, чтобы их увидел TrajectoryReplay, не закрывая файл
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            flushBuffer();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void closeQuietly() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Cannot close trajectory file " + file + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Просмотр траектории, записанной TrajectoryRecorder. Файл целиком отображается
+в память только для чтения, и положение на любом шаге читается по смещению
+записи — без повторной симуляции и без чтения предыдущих шагов, так что переход
+в любое место многочасовой записи мгновенный. Недописанная последняя запись
+(например, после аварийного завершения) отбрасывается.
+*/
+public class TrajectoryReplay implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final long firstTick;
+    private final double stepSeconds;
+    private final int tickCount;
+
+    private TrajectoryReplay(FileChannel channel, MappedByteBuffer map) throws IOException {
+        this.channel = channel;
+        this.map = map;
+        if (map.capacity() < TrajectoryRecorder.HEADER_BYTES || map.getInt(0) != TrajectoryRecorder.MAGIC) {
+            throw new IOException("Not a trajectory file");
+        }
+        if (map.getShort(4) != TrajectoryRecorder.RECORD_BYTES) {
+            throw new IOException("Unsupported trajectory record size " + map.getShort(4));
+        }
+        firstTick = map.getLong(8);
+        stepSeconds = map.getDouble(16);
+        tickCount = (map.capacity() - TrajectoryRecorder.HEADER_BYTES) / TrajectoryRecorder.RECORD_BYTES;
+    }
+
+    public static TrajectoryReplay open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Trajectory file is too large to map: " + size + " bytes");
+            }
+            return new TrajectoryReplay(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Номер шага симуляции, с которого начинается запись
+    public long getFirstTick() {
+        return firstTick;
+    }
+
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    public double getStepSeconds() {
+        return stepSeconds;
+    }
+
+    // Положение на index-м шаге записи (0 .. getTickCount() - 1), O(1)
+    public RobotPose poseAt(int index) {
+        if (index < 0 || index >= tickCount) {
+            throw new IndexOutOfBoundsException("Tick " + index + " of " + tickCount);
+        }
+        int offset = TrajectoryRecorder.HEADER_BYTES + index * TrajectoryRecorder.RECORD_BYTES;
+        return new RobotPose(map.getFloat(offset), map.getFloat(offset + 4), map.getFloat(offset + 8),
+                map.getFloat(offset + 12), map.getFloat(offset + 16), firstTick + index);
+    }
+
+    // Канал закрывается сразу, отображение освобождает сборщик мусора
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
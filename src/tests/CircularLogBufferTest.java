@@ -1,17 +1,26 @@
 package tests;
 
 import log.CircularLogBuffer;
+import log.LogArchive;
 import log.LogEntry;
 import log.LogLevel;
+import log.LogSearchIndex;
+import log.LogSubscription;
+import log.LogWindowSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -119,4 +128,370 @@ public class CircularLogBufferTest {
 
         executor.shutdown();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLockFreeAppendAndEviction() {
+        CircularLogBuffer lockFree = CircularLogBuffer.lockFree(CAPACITY);
+        assertEquals(CircularLogBuffer.Mode.LOCK_FREE, lockFree.getMode());
+
+        for (int i = 1; i <= 6; i++) {
+            lockFree.append(LogLevel.Info, "Message " + i);
+        }
+
+        assertEquals(CAPACITY, lockFree.size(), "Размер буфера должен быть равен ёмкости (5)");
+        List<LogEntry> entries = new ArrayList<>();
+        for (LogEntry entry : lockFree.all()) {
+            entries.add(entry);
+        }
+        assertEquals(CAPACITY, entries.size(), "Должно быть 5 записей после вытеснения");
+        assertEquals("Message 2", entries.get(0).getMessage(), "Самая старая запись теперь Message 2");
+        assertEquals("Message 6", entries.get(4).getMessage(), "Последняя запись должна быть Message 6");
+
+        List<LogEntry> rangeEntries = new ArrayList<>();
+        for (LogEntry entry : lockFree.range(1, 3)) {
+            rangeEntries.add(entry);
+        }
+        assertEquals(3, rangeEntries.size(), "Range должен вернуть 3 записи");
+        assertEquals("Message 3", rangeEntries.get(0).getMessage(), "Первая запись в range — Message 3");
+        assertEquals("Message 5", rangeEntries.get(2).getMessage(), "Последняя запись в range — Message 5");
+    }
+
+    @Test
+    void testLockFreeConcurrentAppendAndRead() throws InterruptedException {
+        CircularLogBuffer lockFree = CircularLogBuffer.lockFree(CAPACITY);
+        int writerThreads = 4;
+        int readerThreads = 4;
+        int writesPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writerThreads + readerThreads);
+        CountDownLatch latch = new CountDownLatch(writerThreads + readerThreads);
+
+        for (int i = 0; i < writerThreads; i++) {
+            final int threadId = i;
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < writesPerThread; j++) {
+                        lockFree.append(LogLevel.Info, "Message from thread " + threadId + ": " + j);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        for (int i = 0; i < readerThreads; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 1_000; j++) {
+                        for (LogEntry entry : lockFree.all()) {
+                            assertNotNull(entry, "Читатель не должен видеть пустые слоты");
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Все потоки должны завершиться за 5 секунд");
+
+        // После остановки писателей все слоты опубликованы
+        assertEquals(CAPACITY, lockFree.size(), "Размер буфера должен быть равен ёмкости");
+        List<LogEntry> entries = new ArrayList<>();
+        for (LogEntry entry : lockFree.all()) {
+            entries.add(entry);
+        }
+        assertEquals(CAPACITY, entries.size(), "Должно быть 5 записей");
+
+        executor.shutdown();
+    }
+
+    @Test
+    void testForEachVisitsInPlaceAndReportsOverwritten() {
+        for (int i = 1; i <= 6; i++) {
+            buffer.append(LogLevel.Info, "Message " + i);
+        }
+
+        List<String> visited = new ArrayList<>();
+        int overwritten = buffer.forEach(1, 3, entry -> visited.add(entry.getMessage()));
+        assertEquals(0, overwritten, "Без параллельных писателей ничего не вытесняется");
+        assertEquals(List.of("Message 3", "Message 4", "Message 5"), visited);
+
+        // Пишем во время обхода: две ещё не прочитанные записи вытесняются
+        visited.clear();
+        overwritten = buffer.forEach(0, CAPACITY, entry -> {
+            visited.add(entry.getMessage());
+            if (entry.getMessage().equals("Message 2")) {
+                for (int i = 7; i <= 9; i++) {
+                    buffer.append(LogLevel.Info, "Message " + i);
+                }
+            }
+        });
+        assertEquals(2, overwritten, "Должны быть вытеснены Message 3 и Message 4");
+        assertEquals(List.of("Message 2", "Message 5", "Message 6"), visited);
+    }
+
+    @Test
+    void testSubscriptionDeliversOnlyNewEntriesAndCountsLost() {
+        LogWindowSource source = new LogWindowSource(CAPACITY);
+        LogSubscription subscription = source.subscribe();
+        List<LogEntry> received = new ArrayList<>();
+
+        source.append(LogLevel.Info, "Message 1");
+        source.append(LogLevel.Info, "Message 2");
+        assertEquals(0, subscription.poll(received::add), "Ничего не потеряно");
+        assertEquals(2, received.size());
+        assertEquals(0, received.get(0).getSequence(), "Номера начинаются с нуля");
+        assertEquals(1, subscription.getLastSequence());
+
+        // Повторный опрос без новых записей ничего не отдаёт
+        received.clear();
+        subscription.poll(received::add);
+        assertTrue(received.isEmpty(), "Новых записей нет");
+
+        // 8 записей в буфер на 5: три из них вытесняются до опроса
+        for (int i = 3; i <= 10; i++) {
+            source.append(LogLevel.Info, "Message " + i);
+        }
+        assertEquals(3, subscription.poll(received::add), "Потеряны Message 3..5");
+        assertEquals(CAPACITY, received.size());
+        assertEquals("Message 6", received.get(0).getMessage());
+        assertEquals(9, received.get(CAPACITY - 1).getSequence());
+        assertEquals(3, subscription.getLostCount());
+    }
+
+    @Test
+    void testForEachNewestUsesLevelIndexAfterEviction() {
+        LogLevel[] levels = LogLevel.values();
+        // 12 записей в буфер на 5: живы только номера 7..11
+        for (int i = 0; i < 12; i++) {
+            buffer.append(levels[i % levels.length], "Message " + i);
+        }
+
+        List<String> errors = new ArrayList<>();
+        buffer.forEachNewest(LogLevel.Error, 10, entry -> errors.add(entry.getMessage()));
+        assertEquals(List.of("Message 10", "Message 11"), errors,
+                "Вытесненные Error/Fatal записи не должны попадать в выборку");
+
+        List<String> newest = new ArrayList<>();
+        buffer.forEachNewest(LogLevel.Debug, 2, entry -> newest.add(entry.getMessage()));
+        assertEquals(List.of("Message 10", "Message 11"), newest, "Две новейшие записи в порядке добавления");
+    }
+
+    @Test
+    void testCompactModeKeepsOverwriteOldestAndArenaLimit() {
+        CircularLogBuffer compact = new CircularLogBuffer(CAPACITY, CircularLogBuffer.Mode.COMPACT);
+        for (int i = 1; i <= 6; i++) {
+            compact.append(LogLevel.Warning, "Сообщение " + i);
+        }
+        List<LogEntry> entries = new ArrayList<>();
+        compact.forEach(entries::add);
+        assertEquals(CAPACITY, entries.size(), "Должно быть 5 записей после вытеснения");
+        assertEquals("Сообщение 2", entries.get(0).getMessage(), "UTF-8 сообщения восстанавливаются без потерь");
+        assertEquals(LogLevel.Warning, entries.get(0).getLevel());
+        assertEquals(5, entries.get(4).getSequence());
+
+        // Арена на 30 байт вмещает только две записи по 11 байт
+        CircularLogBuffer small = CircularLogBuffer.compact(100, 30);
+        for (int i = 0; i < 10; i++) {
+            small.append(LogLevel.Info, "abcdefghij" + i);
+        }
+        assertEquals(2, small.size(), "Старые записи вытесняются по месту в арене");
+        assertEquals(8, small.firstSequence());
+        assertEquals("abcdefghij9", small.get(9).getMessage());
+        assertNull(small.get(7), "Вытесненная запись недоступна");
+    }
+
+    @Test
+    void testCompactModeFiltersByLevelIndexAndTruncatesOnCharBoundary() {
+        CircularLogBuffer compact = new CircularLogBuffer(CAPACITY, CircularLogBuffer.Mode.COMPACT);
+        for (int i = 1; i <= 12; i++) {
+            compact.append(i % 4 == 0 ? LogLevel.Error : LogLevel.Info, "Message " + i);
+        }
+        List<String> errors = new ArrayList<>();
+        compact.forEachNewest(LogLevel.Error, 5, entry -> errors.add(entry.getMessage()));
+        assertEquals(List.of("Message 8", "Message 12"), errors, "Вытесненные записи уровня Error не возвращаются");
+
+        // "абв" занимает 6 байт: обрезка до 5 байт не должна разрывать символ "б"
+        CircularLogBuffer small = CircularLogBuffer.compact(10, 5);
+        small.append(LogLevel.Info, "абв");
+        assertEquals("аб", small.get(0).getMessage(), "Обрезка по границе символа");
+    }
+
+    @Test
+    void testCompactLevelChainsMatchFullScan() {
+        CircularLogBuffer compact = CircularLogBuffer.compact(50, 600); // Вытеснение и по слотам, и по арене
+        Random random = new Random(7);
+        LogLevel[] levels = LogLevel.values();
+        for (int i = 0; i < 2000; i++) {
+            compact.append(levels[random.nextInt(levels.length)], "x".repeat(random.nextInt(30)));
+            LogLevel minLevel = levels[random.nextInt(levels.length)];
+            int limit = 1 + random.nextInt(20);
+
+            List<Long> expected = new ArrayList<>();
+            compact.forEach(entry -> {
+                if (entry.getLevel().level() >= minLevel.level()) {
+                    expected.add(entry.getSequence());
+                }
+            });
+            List<Long> actual = new ArrayList<>();
+            compact.forEachNewest(minLevel, limit, entry -> actual.add(entry.getSequence()));
+            assertEquals(expected.subList(Math.max(0, expected.size() - limit), expected.size()), actual,
+                    "Цепочки уровней дают те же записи, что и полный просмотр");
+        }
+    }
+
+    @Test
+    void testArchiveServesEvictedEntriesFromDisk() throws IOException {
+        Path directory = Files.createTempDirectory("robots_archive");
+        LogArchive archive = new LogArchive(directory, 4096, 0); // Маленькие сегменты, чтобы их было несколько
+        buffer.attachArchive(archive);
+
+        for (int i = 0; i < 1000; i++) {
+            buffer.append(LogLevel.Info, "Message " + i);
+        }
+
+        assertEquals("Message 10", buffer.get(10).getMessage(), "Запись из очереди архива читается до записи на диск");
+        archive.flush();
+        assertEquals(995, archive.getArchivedCount(), "Все вытесненные записи попадают в архив");
+        assertEquals(0, buffer.historyFirstSequence());
+        assertEquals("Message 10", buffer.get(10).getMessage(), "Старая запись читается с диска");
+        assertEquals("Message 997", buffer.get(997).getMessage(), "Новая запись читается из буфера");
+
+        // Диапазон на стыке архива и кольцевого буфера
+        List<Long> sequences = new ArrayList<>();
+        buffer.forEachInHistory(990, 10, entry -> sequences.add(entry.getSequence()));
+        assertEquals(List.of(990L, 991L, 992L, 993L, 994L, 995L, 996L, 997L, 998L, 999L), sequences);
+        archive.close();
+    }
+
+    @Test
+    void testArchiveReaderMayLogWhileReading() throws Exception {
+        Path directory = Files.createTempDirectory("robots_archive");
+        LogArchive archive = new LogArchive(directory, 4096, 2);
+        buffer.attachArchive(archive);
+        for (int i = 0; i < 200; i++) {
+            buffer.append(LogLevel.Info, "Message " + i);
+        }
+        archive.flush();
+
+        // Читатель пишет в лог, вытесняя записи в архив, пока сам читает архив
+        Thread reader = new Thread(() -> buffer.forEachInHistory(0, 100,
+                entry -> buffer.append(LogLevel.Debug, "Read " + entry.getSequence())));
+        reader.start();
+        reader.join(10_000);
+        assertFalse(reader.isAlive(), "Чтение архива не держит блокировку, нужную append()");
+        archive.flush();
+        assertEquals(buffer.nextSequence() - CAPACITY, archive.getArchivedCount() + archive.getLostCount(),
+                "Все вытесненные записи учтены");
+        archive.close();
+    }
+
+    @Test
+    void testArchiveKeepsOnlyNewestSegments() throws IOException {
+        Path directory = Files.createTempDirectory("robots_archive");
+        LogArchive archive = new LogArchive(directory, 4096, 2);
+        buffer.attachArchive(archive);
+
+        for (int i = 0; i < 2000; i++) {
+            buffer.append(LogLevel.Info, "Message " + i);
+        }
+        archive.flush();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count(), "Старые сегменты удаляются с диска");
+        }
+        long first = archive.firstSequence();
+        assertTrue(first > 0, "Начало архива сдвигается вместе с удалёнными сегментами");
+        assertNull(buffer.get(first - 1), "Запись из удалённого сегмента недоступна");
+        assertEquals("Message " + first, buffer.get(first).getMessage());
+        archive.close();
+    }
+
+    @Test
+    void testLockFreeWriterOvertakenByNextLapIsAccounted() throws Exception {
+        Path directory = Files.createTempDirectory("robots_archive");
+        LogArchive archive = new LogArchive(directory, 1 << 20, 0);
+        CircularLogBuffer tiny = CircularLogBuffer.lockFree(2); // Писатели постоянно обгоняют друг друга на круг
+        tiny.attachArchive(archive);
+        int threads = 4;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    tiny.append(LogLevel.Info, "Message " + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        archive.flush();
+        // Обогнанный писатель отдаёт запись архиву сразу; потерей считается только запись,
+        // опоздавшая больше чем на окно переупорядочивания архива
+        assertEquals(threads * perThread - tiny.size(), archive.getArchivedCount() + archive.getLostCount(),
+                "Каждая запись либо в буфере, либо в архиве, либо учтена как потерянная");
+        assertTrue(tiny.getOvertakenCount() < threads * perThread, "Обгоны видны в метриках");
+        archive.close();
+    }
+
+    @Test
+    void testSearchIndexFindsLiveEntriesAndDropsEvicted() {
+        LogWindowSource source = new LogWindowSource(CAPACITY);
+        source.append(LogLevel.Info, "Robot reached target");
+        LogSearchIndex index = source.enableSearch(); // Уже лежащие в буфере записи тоже индексируются
+        source.append(LogLevel.Error, "Target unreachable");
+        source.append(LogLevel.Info, "robot moved");
+
+        assertArrayEquals(new long[]{0, 1}, index.search("TARGET", 10), "Поиск без учёта регистра");
+        assertArrayEquals(new long[]{0}, index.search("robot target", 10), "Все слова запроса");
+        assertArrayEquals(new long[]{1}, index.search("target", 1), "Лимит оставляет новейшие совпадения");
+        assertEquals(0, index.search("missing", 10).length);
+
+        for (int i = 0; i < CAPACITY; i++) {
+            source.append(LogLevel.Info, "filler " + i);
+        }
+        assertEquals(0, index.search("target", 10).length, "Вытесненные записи не находятся");
+    }
+
+    @Test
+    void testRangeByTimeUsesAppendTimestamps() {
+        CircularLogBuffer compact = new CircularLogBuffer(CAPACITY, CircularLogBuffer.Mode.COMPACT);
+        for (CircularLogBuffer target : List.of(buffer, compact, CircularLogBuffer.lockFree(CAPACITY))) {
+            for (int i = 0; i < 8; i++) {
+                target.append(LogLevel.Info, "Message " + i, 1000 + i * 10);
+            }
+            target.append(LogLevel.Info, "Late", 1000); // Меньшая отметка выравнивается по предыдущей
+
+            List<String> messages = new ArrayList<>();
+            target.rangeByTime(1050, 1070).forEach(entry -> messages.add(entry.getMessage()));
+            assertEquals(List.of("Message 5", "Message 6"), messages, "Полуинтервал [from, to)");
+            assertEquals(1070, target.get(8).getTimestamp(), "Порядок по времени не нарушается");
+            assertEquals(0, target.forEachByTime(0, 1040, entry -> { }), "Вытесненные записи не находятся");
+            assertEquals(3, target.forEachByTime(1060, Long.MAX_VALUE, entry -> { }));
+        }
+    }
+
+    @Test
+    void testLockFreeTimestampsGrowWithSequence() throws InterruptedException {
+        CircularLogBuffer lockFree = CircularLogBuffer.lockFree(100_000);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    lockFree.append(LogLevel.Info, "Message " + i);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        long previous = Long.MIN_VALUE;
+        for (long sequence = 0; sequence < lockFree.nextSequence(); sequence++) {
+            long timestamp = lockFree.get(sequence).getTimestamp();
+            assertTrue(timestamp >= previous, "Отметка времени не меньше, чем у предыдущего номера");
+            previous = timestamp;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package tests;
+
+import log.FileLogAppender;
+import log.LogEntry;
+import log.LogLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileLogAppenderTest {
+    private static final Duration NEVER = Duration.ofDays(1);
+
+    private static LogEntry entry(LogLevel level, int sequence) {
+        return new LogEntry(level, "Message " + sequence, sequence, 0);
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testCloseWritesEverythingStillQueued() throws IOException {
+        Path file = Files.createTempDirectory("robots_log").resolve("robots.log");
+        FileLogAppender appender = new FileLogAppender(file, 8, 1L << 20, NEVER, 0,
+                FileLogAppender.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 1000; i++) {
+            appender.append(entry(LogLevel.Info, i));
+        }
+        appender.close();
+
+        List<String> lines = lines(file);
+        assertEquals(1000, lines.size(), "С политикой BLOCK ни одна запись не теряется");
+        assertEquals("[Info] Message 999", lines.get(999));
+        assertEquals(1000, appender.getWrittenCount());
+        assertEquals(0, appender.getDroppedCount());
+
+        appender.append(entry(LogLevel.Info, 1000));
+        assertEquals(1, appender.getDroppedCount(), "После закрытия записи отбрасываются");
+    }
+
+    @Test
+    void testRollingKeepsOnlyNewestFiles() throws IOException {
+        Path directory = Files.createTempDirectory("robots_log");
+        Path file = directory.resolve("robots.log");
+        FileLogAppender appender = new FileLogAppender(file, 8, 200, NEVER, 2,
+                FileLogAppender.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            appender.append(entry(LogLevel.Info, i));
+        }
+        appender.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count(), "Текущий файл и два последних переименованных");
+        }
+        List<String> current = lines(file);
+        assertEquals("[Info] Message 99", current.get(current.size() - 1), "Новые записи в текущем файле");
+        assertTrue(Files.size(file) <= 200);
+    }
+
+    @Test
+    void testWriterSurvivesFailedRoll() throws Exception {
+        Path file = Files.createTempDirectory("robots_log").resolve("robots.log");
+        FileLogAppender appender = new FileLogAppender(file, 8, 200, NEVER, 0,
+                FileLogAppender.OverflowPolicy.BLOCK);
+        appender.append(entry(LogLevel.Info, 0));
+        while (appender.getWrittenCount() < 1) {
+            Thread.sleep(10);
+        }
+        Files.delete(file); // Переименовать при ротации будет нечего
+
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 500; i++) {
+                appender.append(entry(LogLevel.Info, i));
+            }
+        });
+        writer.start();
+        writer.join(10_000);
+        assertFalse(writer.isAlive(), "Фоновый поток продолжает разбирать очередь после ошибки ротации");
+        appender.close();
+
+        assertEquals(501, appender.getWrittenCount() + appender.getDroppedCount());
+        List<String> current = lines(file);
+        assertEquals("[Info] Message 500", current.get(current.size() - 1), "Файл открыт заново");
+    }
+
+    @Test
+    void testDropAndSampleCountEveryLostEntry() throws IOException {
+        Path directory = Files.createTempDirectory("robots_log");
+        for (FileLogAppender.OverflowPolicy policy : List.of(FileLogAppender.OverflowPolicy.DROP,
+                FileLogAppender.OverflowPolicy.SAMPLE)) {
+            Path file = directory.resolve(policy + ".log");
+            FileLogAppender appender = new FileLogAppender(file, 4, 1L << 20, NEVER, 0, policy);
+            int total = 100_000;
+            for (int i = 0; i < total; i++) {
+                appender.append(entry(LogLevel.Debug, i));
+            }
+            appender.close();
+
+            assertTrue(appender.getDroppedCount() > 0, policy + ": очередь на 4 записи переполняется");
+            assertEquals(total, appender.getWrittenCount() + appender.getDroppedCount(),
+                    policy + ": каждая запись либо записана, либо учтена как отброшенная");
+            assertEquals(appender.getWrittenCount(), lines(file).size());
+        }
+    }
+}
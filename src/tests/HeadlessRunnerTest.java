@@ -0,0 +1,43 @@
+package tests;
+
+import model.HeadlessRunner;
+import model.RobotSwarm;
+import model.Scenario;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeadlessRunnerTest {
+    @Test
+    void testRunsUntilEveryTargetIsReached() {
+        Scenario scenario = Scenario.parse(List.of(
+                "# Скорость 1000/30 и шаг 0.03 — ровно единица за шаг",
+                "robot 0 0 100 0",
+                "robot 0 10 0 30 20 30  # две цели по очереди",
+                "dt 0.03"));
+        RobotSwarm swarm = scenario.createSwarm();
+
+        HeadlessRunner.Result result = HeadlessRunner.run(swarm, scenario.getDt(), scenario.getMaxSteps(), true);
+
+        assertTrue(result.allReached, "Все роботы доехали до последних целей");
+        assertEquals(100, result.steps, "Прогон кончается вместе с самым долгим маршрутом");
+        assertEquals(100, swarm.getX(0), 1e-9);
+        assertEquals(20, swarm.getX(1), 1e-9);
+        assertEquals(30, swarm.getY(1), 1e-9, "Второй робот прошёл обе цели");
+        assertEquals(2, HeadlessRunner.countReached(swarm));
+    }
+
+    @Test
+    void testStepLimitAndScenarioErrors() {
+        Scenario scenario = Scenario.parse(List.of("robot 0 0 1000 0", "steps 10"));
+        HeadlessRunner.Result result = HeadlessRunner.run(scenario.createSwarm(), scenario.getDt(), scenario.getMaxSteps(), true);
+        assertFalse(result.allReached, "За 10 шагов до цели не доехать");
+        assertEquals(10, result.steps);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> Scenario.parse(List.of("robot 0 0 1 1", "teleport 5 5")));
+        assertTrue(error.getMessage().startsWith("Scenario line 2"), "Ошибка указывает строку");
+    }
+}
@@ -0,0 +1,58 @@
+package tests;
+
+import log.LogDispatcher;
+import log.LogLevel;
+import log.LogWindowSource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogDispatcherTest {
+    private static final int CAPACITY = 5;
+
+    @Test
+    void testAsyncDispatchCollapsesBurstIntoFewCallbacks() {
+        LogWindowSource source = new LogWindowSource(CAPACITY);
+        AtomicInteger callbacks = new AtomicInteger();
+        source.registerListener(callbacks::incrementAndGet);
+        LogDispatcher dispatcher = source.enableAsyncDispatch(1000, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 3000; i++) {
+            source.append(LogLevel.Info, "Message " + i);
+        }
+        source.disableAsyncDispatch(); // Рассылает остаток и ждёт остановки потока
+
+        // Задержка не успевает истечь, поэтому рассылка идёт только по полной пачке из 1000
+        // сигналов (или больше) и один раз при остановке: вызовов не больше трёх
+        assertTrue(callbacks.get() >= 1 && callbacks.get() <= 3, "Слушатель вызывается пачками: " + callbacks.get());
+        assertEquals(callbacks.get(), dispatcher.getDispatchedCount());
+        assertEquals(3000, dispatcher.getDispatchedCount() + dispatcher.getCollapsedCount(),
+                "Каждый сигнал либо разослан, либо слит с соседними");
+
+        source.append(LogLevel.Info, "Sync");
+        assertEquals(dispatcher.getDispatchedCount() + 1, callbacks.get(), "После отключения вызов синхронный");
+    }
+
+    @Test
+    void testAsyncDispatchFiresOnceAfterDelay() throws InterruptedException {
+        LogWindowSource source = new LogWindowSource(CAPACITY);
+        AtomicInteger callbacks = new AtomicInteger();
+        source.registerListener(callbacks::incrementAndGet);
+        LogDispatcher dispatcher = source.enableAsyncDispatch(1000, Duration.ofMillis(500));
+
+        for (int i = 0; i < 10; i++) {
+            source.append(LogLevel.Info, "Message " + i);
+        }
+        for (int waited = 0; callbacks.get() == 0 && waited < 5000; waited += 10) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, callbacks.get(), "Неполная пачка рассылается один раз по истечении задержки");
+        assertEquals(9, dispatcher.getCollapsedCount());
+        source.disableAsyncDispatch();
+        assertEquals(1, callbacks.get(), "При остановке рассылать нечего");
+    }
+}
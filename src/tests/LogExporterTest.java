@@ -0,0 +1,45 @@
+package tests;
+
+import log.CircularLogBuffer;
+import log.LogExporter;
+import log.LogLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogExporterTest {
+    @Test
+    void testExporterStreamsGzipNdjson() throws IOException {
+        CircularLogBuffer buffer = new CircularLogBuffer(5);
+        buffer.append(LogLevel.Info, "Robot \"R1\" started");
+        buffer.append(LogLevel.Error, "Line1\nLine2");
+        Path file = Files.createTempFile("robots_export", ".ndjson.gz");
+        List<Long> progress = new ArrayList<>();
+
+        long exported = LogExporter.forFile(buffer, file).exportTo(file, (done, total) -> progress.add(done));
+
+        assertEquals(2, exported);
+        assertEquals(List.of(2L), progress, "Прогресс по номерам записей");
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertEquals(2, lines.size(), "Одна JSON-запись на строку");
+        assertTrue(lines.get(0).startsWith("{\"seq\":0,"));
+        assertTrue(lines.get(0).endsWith("\"level\":\"Info\",\"message\":\"Robot \\\"R1\\\" started\"}"));
+        assertTrue(lines.get(1).endsWith("\"message\":\"Line1\\nLine2\"}"), "Перевод строки экранируется");
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,70 @@
+package tests;
+
+import log.LogFloodGuard;
+import log.LogLevel;
+import log.LogWindowSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogFloodGuardTest {
+    @Test
+    void testFloodGuardCollapsesRepeatsAndLimitsRate() {
+        LogWindowSource source = new LogWindowSource(100);
+        LogFloodGuard guard = new LogFloodGuard();
+        guard.setRateLimit(LogLevel.Debug, 1, 3); // Всплеск из трёх записей, затем одна в секунду
+        guard.setSampleRate(0);
+        source.setFloodGuard(guard);
+
+        for (int i = 0; i < 50; i++) {
+            source.append(LogLevel.Error, "Window state error");
+        }
+        source.append(LogLevel.Info, "Recovered");
+        List<String> messages = new ArrayList<>();
+        source.forEach(entry -> messages.add(entry.getMessage()));
+        assertEquals(List.of("Window state error", "Previous message repeated 49 times", "Recovered"), messages,
+                "Повторы схлопываются в одну сводку");
+        assertEquals(49, guard.getDuplicateCount());
+
+        for (int i = 0; i < 10; i++) {
+            source.append(LogLevel.Debug, "Step " + i);
+        }
+        assertEquals(6, source.size(), "Проходит только всплеск");
+        assertEquals(7, guard.getRateLimitedCount(LogLevel.Debug));
+        assertEquals(56, guard.getSuppressedCount());
+    }
+
+    @Test
+    void testFloodGuardCountsRepeatsFromManyThreads() throws InterruptedException {
+        LogWindowSource source = new LogWindowSource(100);
+        LogFloodGuard guard = new LogFloodGuard();
+        guard.setRateLimit(LogLevel.Info, 0, 0);
+        guard.setSummaryFormat("Повтор: %d");
+        source.setFloodGuard(guard);
+        int threads = 4;
+        int perThread = 10_000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    source.append(LogLevel.Info, "Same");
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        guard.flush(source);
+
+        List<String> messages = new ArrayList<>();
+        source.forEach(entry -> messages.add(entry.getMessage()));
+        long admitted = messages.stream().filter("Same"::equals).count();
+        assertEquals(threads * perThread, admitted + guard.getDuplicateCount(), "Каждый повтор учтён");
+        assertEquals("Повтор: " + guard.getDuplicateCount(), messages.get(messages.size() - 1),
+                "Сводка по шаблону, заданному окном");
+    }
+}
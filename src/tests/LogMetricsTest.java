@@ -0,0 +1,45 @@
+package tests;
+
+import log.LogLevel;
+import log.LogMetricsSnapshot;
+import log.LogWindowSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogMetricsTest {
+    @Test
+    void testMetricsSnapshotCountsAppendsEvictionsAndLatency() {
+        LogWindowSource source = new LogWindowSource(5);
+        source.registerListener(() -> { });
+        for (int i = 0; i < 8; i++) {
+            source.append(i % 2 == 0 ? LogLevel.Info : LogLevel.Error, "Message " + i);
+        }
+
+        LogMetricsSnapshot snapshot = source.getMetrics().snapshot();
+        assertEquals(4, snapshot.getAppends(LogLevel.Info));
+        assertEquals(4, snapshot.getAppends(LogLevel.Error));
+        assertEquals(8, snapshot.getTotalAppends());
+        assertEquals(3, snapshot.getEvictedCount(), "Вытеснены три самые старые записи");
+        assertEquals(1.0, snapshot.getFillRatio());
+        assertEquals(8, snapshot.getDispatchCount(), "Синхронная рассылка на каждую запись");
+        assertEquals(8, Arrays.stream(snapshot.getLatencyHistogram()).sum(), "Каждый append попадает в гистограмму");
+        assertTrue(snapshot.latencyPercentile(0.5) <= snapshot.latencyPercentile(0.99));
+    }
+
+    @Test
+    void testRateReadsDoNotResetEachOther() {
+        LogWindowSource source = new LogWindowSource(100);
+        source.getMetrics().getAppendRatesPerSecond(); // Открывает окно
+        for (int i = 0; i < 10; i++) {
+            source.append(LogLevel.Warning, "Message " + i);
+        }
+
+        double first = source.getMetrics().getAppendRatesPerSecond()[LogLevel.Warning.level()];
+        double second = source.getMetrics().getAppendRatesPerSecond()[LogLevel.Warning.level()];
+        assertTrue(first > 0, "Записи после открытия окна учтены");
+        assertTrue(second > 0, "Второй читатель видит ту же частоту, а не ноль");
+    }
+}
@@ -0,0 +1,41 @@
+package tests;
+
+import log.LogLevel;
+import log.Logger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoggerTest {
+    @Test
+    void testDisabledLevelNeitherBuildsNorFormatsMessage() {
+        LogLevel previous = Logger.getLevel();
+        Logger.setLevel(LogLevel.Info);
+        try {
+            int[] calls = new int[2];
+            Object argument = new Object() {
+                @Override
+                public String toString() {
+                    calls[1]++;
+                    return "argument";
+                }
+            };
+
+            Logger.debug(() -> {
+                calls[0]++;
+                return "message";
+            });
+            Logger.debug("Value %s", argument);
+            Logger.trace("Value %s", argument);
+
+            assertFalse(Logger.isDebugEnabled());
+            assertEquals(0, calls[0], "Supplier отключённого уровня не вызывается");
+            assertEquals(0, calls[1], "Шаблон отключённого уровня не форматируется");
+
+            Logger.info("Value %s", argument);
+            assertEquals(1, calls[1], "Включённый уровень форматирует сообщение");
+        } finally {
+            Logger.setLevel(previous);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package tests;
+
+import model.OccupancyGrid;
+import model.PathPlanner;
+import model.RobotCommand;
+import model.RobotModel;
+import model.RobotSwarm;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PathPlannerTest {
+    // Стена поперёк поля с проходом внизу
+    private static OccupancyGrid wallWithGap() {
+        OccupancyGrid grid = new OccupancyGrid(100, 100, 10);
+        grid.blockRect(500, 0, 10, 800);
+        return grid;
+    }
+
+    @Test
+    void testPathGoesAroundWallAndIsCached() {
+        OccupancyGrid grid = wallWithGap();
+        try (PathPlanner planner = new PathPlanner(grid)) {
+            double[] path = planner.plan(100, 100, 900, 100);
+
+            assertNotNull(path);
+            assertEquals(900, path[path.length - 2], "Последняя точка — место щелчка");
+            assertEquals(100, path[path.length - 1]);
+            boolean belowWall = false;
+            for (int i = 1; i < path.length; i += 2) {
+                belowWall |= path[i] >= 800;
+            }
+            assertTrue(belowWall, "Путь обходит стену через проход");
+
+            assertArrayEquals(path, planner.plan(100, 100, 900, 100), 0);
+            assertEquals(1, planner.getCacheHits(), "Повторный запрос берётся из кэша");
+            assertEquals(1, planner.getCacheMisses());
+
+            assertNull(planner.plan(100, 100, 505, 100), "Цель внутри препятствия недостижима");
+            grid.blockRect(0, 800, 1000, 10);
+            assertNull(planner.plan(100, 100, 900, 100), "После изменения карты кэш не используется");
+        }
+    }
+
+    @Test
+    void testSwarmFollowsPlannedPathWithoutEnteringObstacles() throws Exception {
+        OccupancyGrid grid = wallWithGap();
+        try (PathPlanner planner = new PathPlanner(grid)) {
+            RobotSwarm swarm = new RobotSwarm(1);
+            swarm.addRobot(100, 100, 100, 100);
+            swarm.setPathPlanner(planner);
+
+            assertTrue(swarm.planTarget(0, 900, 100).get(), "Путь найден в потоке планировщика");
+            assertEquals(100, swarm.getGoalX(0), "Путь ждёт в очереди до начала шага");
+            swarm.step(0, 0.03);
+            assertEquals(900, swarm.getGoalX(0), "Путь принят первым же шагом");
+            int tick = 1;
+            while (Math.hypot(swarm.getX(0) - 900, swarm.getY(0) - 100) > RobotSwarm.ARRIVAL_DISTANCE && tick < 10_000) {
+                swarm.step(tick++, 0.03);
+                assertFalse(grid.isBlocked(grid.cellX(swarm.getX(0)), grid.cellY(swarm.getY(0))),
+                        "Робот не заезжает в препятствие");
+            }
+            assertTrue(tick < 10_000, "Робот доехал до цели");
+            assertEquals(2, swarm.getRemainingPath(0).length, "Пройдены все путевые точки, кроме цели");
+        }
+    }
+
+    @Test
+    void testAppendedLegStartsWhereEarlierPlanEnds() throws Exception {
+        OccupancyGrid grid = wallWithGap();
+        try (PathPlanner planner = new PathPlanner(grid)) {
+            RobotSwarm swarm = new RobotSwarm(1);
+            swarm.addRobot(900, 700, 900, 700);
+            swarm.setPathPlanner(planner);
+
+            // Добавление запрошено, пока путь к первой цели ещё ищется: его отрезок
+            // должен начаться в (100, 100), а не в прежней цели по ту сторону стены
+            var first = swarm.planTarget(0, 100, 100);
+            var appended = swarm.appendTarget(0, 900, 700, 900, 100);
+            assertTrue(first.get() && appended.get(), "Оба отрезка найдены");
+
+            assertTrue(driveTo(swarm, grid, 100, 100) < 20_000, "Робот сначала едет к первой цели");
+            assertTrue(driveTo(swarm, grid, 900, 100) < 20_000, "Затем к добавленной, в обход стены");
+        }
+    }
+
+    @Test
+    void testCancelDropsPathStillBeingPlanned() throws Exception {
+        try (PathPlanner planner = new PathPlanner(wallWithGap())) {
+            RobotSwarm swarm = new RobotSwarm(1);
+            swarm.addRobot(100, 100, 100, 100);
+            swarm.setPathPlanner(planner);
+
+            var planned = swarm.planTarget(0, 900, 100);
+            assertTrue(swarm.submit(RobotCommand.cancel(0)));
+            planned.get(); // Найден до отмены — применится раньше неё, после — отброшен
+            for (int tick = 0; tick < 100; tick++) {
+                swarm.step(tick, 0.03);
+            }
+            assertEquals(100, swarm.getX(0), "Отменённый робот стоит");
+            assertEquals(100, swarm.getGoalX(0), "Путь, найденный для отменённой цели, не применён");
+        }
+    }
+
+    @Test
+    void testReplanKeepsEveryRemainingWaypoint() throws Exception {
+        OccupancyGrid grid = new OccupancyGrid(100, 100, 10);
+        try (PathPlanner planner = new PathPlanner(grid)) {
+            RobotSwarm swarm = new RobotSwarm(1);
+            swarm.addRobot(100, 100, 100, 100);
+            swarm.setPathPlanner(planner);
+            RobotModel robot = swarm.view(0);
+            robot.setTarget(300, 300).get();
+            assertTrue(robot.appendTarget(900, 100).get());
+            swarm.step(0, 0.03);
+
+            grid.blockRect(500, 0, 10, 800); // Новая стена между целями
+            assertTrue(robot.replanRoute().get(), "Оставшийся маршрут найден заново");
+            assertTrue(driveTo(swarm, grid, 300, 300) < 20_000, "Промежуточная цель сохранилась");
+            assertTrue(driveTo(swarm, grid, 900, 100) < 20_000, "Робот объехал новую стену");
+        }
+    }
+
+    // Шаги, пока робот не окажется у точки; робот не должен заезжать в препятствия
+    private static int driveTo(RobotSwarm swarm, OccupancyGrid grid, double px, double py) {
+        int tick = 0;
+        while (Math.hypot(swarm.getX(0) - px, swarm.getY(0) - py) > RobotSwarm.ARRIVAL_DISTANCE && tick < 20_000) {
+            swarm.step(tick++, 0.03);
+            assertFalse(grid.isBlocked(grid.cellX(swarm.getX(0)), grid.cellY(swarm.getY(0))),
+                    "Робот не заезжает в препятствие");
+        }
+        return tick;
+    }
+}
@@ -0,0 +1,298 @@
+package tests;
+
+import model.RobotCommand;
+import model.RobotModel;
+import model.RobotPose;
+import model.RobotSwarm;
+import model.SimulationLoop;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotSwarmTest {
+    @Test
+    void testParallelStepMatchesSequentialPath() {
+        int robots = 10_000; // Больше порога: шаг идёт параллельно кусками
+        RobotSwarm parallel = new RobotSwarm(robots, 10, new ForkJoinPool(4));
+        RobotSwarm single = new RobotSwarm(1, 10, ForkJoinPool.commonPool());
+        for (int i = 0; i < robots; i++) {
+            parallel.addRobot(i, 0, i, 100);
+        }
+        single.addRobot(robots - 1, 0, robots - 1, 100);
+
+        for (int tick = 0; tick < 50; tick++) {
+            parallel.step(tick, 0.1);
+            single.step(tick, 0.1);
+        }
+
+        for (int i = 0; i < robots; i += 997) {
+            assertEquals(50, parallel.getY(i), 1e-9, "Каждый робот прошёл 50 единиц");
+        }
+        assertEquals(single.getY(0), parallel.getY(robots - 1), 0, "Результат не зависит от разбиения на куски");
+        assertEquals(Math.PI / 2, parallel.getDirection(robots - 1), 1e-12);
+    }
+
+    @Test
+    void testViewBehavesLikeRobotModel() {
+        RobotSwarm swarm = new RobotSwarm(3);
+        swarm.addRobot(0, 0, 0, 0);
+        swarm.addRobot(10, 10, 10, 10);
+        RobotModel view = swarm.view(1);
+        int[] notifications = new int[1];
+        view.addListener(pose -> notifications[0]++);
+
+        view.setTarget(10, 20);
+        swarm.step(0, 0.1);
+
+        assertEquals(10 + RobotModel.VELOCITY * 0.1, view.getY(), 1e-9);
+        assertEquals(20, view.getTargetY());
+        assertEquals(0, swarm.getY(0), "Остальные роботы стоят на месте");
+        assertEquals(1, notifications[0], "Слушатель оповещается после шага");
+        assertNull(view.getSimulationLoop(), "У представления нет своего цикла");
+
+        view.setTarget(10, 10 + RobotModel.VELOCITY * 0.1); // Уже на месте
+        swarm.step(1, 0.1);
+        int afterArrival = notifications[0];
+        swarm.step(2, 0.1);
+        swarm.step(3, 0.1);
+        assertEquals(afterArrival, notifications[0], "Стоящий робот не оповещает");
+        assertEquals(1, view.getPose().getTick(), "Снимок не пересоздаётся, пока робот стоит");
+    }
+
+    @Test
+    void testViewWithoutListenersReadsPublishedPose() {
+        RobotSwarm swarm = new RobotSwarm(2);
+        swarm.addRobot(0, 0, 0, 0);
+        swarm.addRobot(10, 10, 10, 50);
+        RobotModel view = swarm.view(1);
+
+        swarm.step(7, 0.1);
+        RobotPose pose = view.getPose();
+        assertEquals(7, pose.getTick(), "Снимок опубликован шагом, хотя слушателей нет");
+        assertTrue(pose == view.getPose(), "Геттеры читают опубликованный снимок, а не массивы роя");
+        assertEquals(10 + RobotModel.VELOCITY * 0.1, pose.getY(), 1e-9);
+        view.shutdown();
+    }
+
+    @Test
+    void testGridQueriesMatchLinearScan() {
+        Random random = new Random(1);
+        RobotSwarm indexed = new RobotSwarm(5000);
+        RobotSwarm plain = new RobotSwarm(5000);
+        for (int i = 0; i < 5000; i++) {
+            double px = random.nextDouble() * 1000;
+            double py = random.nextDouble() * 1000;
+            indexed.addRobot(px, py, px, py);
+            plain.addRobot(px, py, px, py);
+        }
+        indexed.enableCollisionAvoidance(2);
+        int[] indexedOut = new int[5000];
+        int[] plainOut = new int[5000];
+
+        for (int query = 0; query < 200; query++) {
+            double px = random.nextDouble() * 1000;
+            double py = random.nextDouble() * 1000;
+            int found = indexed.robotsWithin(px, py, 25, -1, indexedOut);
+            assertEquals(plain.robotsWithin(px, py, 25, -1, plainOut), found, "Сетка находит тех же соседей");
+            int nearest = indexed.nearestRobot(px, py, 100, -1);
+            int expected = plain.nearestRobot(px, py, 100, -1);
+            if (expected < 0) {
+                assertEquals(-1, nearest);
+            } else {
+                assertEquals(Math.hypot(plain.getX(expected) - px, plain.getY(expected) - py),
+                        Math.hypot(indexed.getX(nearest) - px, indexed.getY(nearest) - py), 1e-9,
+                        "Ближайший робот найден на том же расстоянии");
+            }
+        }
+    }
+
+    @Test
+    void testNearestWithUnboundedRadiusFallsBackToScan() {
+        Random random = new Random(2);
+        RobotSwarm indexed = new RobotSwarm(100);
+        RobotSwarm plain = new RobotSwarm(100);
+        for (int i = 0; i < 100; i++) {
+            double px = random.nextDouble() * 100;
+            double py = random.nextDouble() * 100;
+            indexed.addRobot(px, py, px, py);
+            plain.addRobot(px, py, px, py);
+        }
+        indexed.enableCollisionAvoidance(1);
+
+        for (double radius : new double[]{Double.POSITIVE_INFINITY, 1e15, 1e6}) {
+            int nearest = indexed.nearestRobot(1e5, -3e5, radius, -1);
+            int expected = plain.nearestRobot(1e5, -3e5, radius, -1);
+            assertEquals(expected < 0, nearest < 0, "Радиус " + radius);
+            if (expected >= 0) {
+                assertEquals(Math.hypot(plain.getX(expected) - 1e5, plain.getY(expected) + 3e5),
+                        Math.hypot(indexed.getX(nearest) - 1e5, indexed.getY(nearest) + 3e5), 1e-6,
+                        "Далёкий ближайший робот найден перебором, радиус " + radius);
+            }
+        }
+        assertEquals(-1, indexed.nearestRobot(1e5, -3e5, 10, -1), "В малом радиусе никого нет");
+    }
+
+    @Test
+    void testCollisionAvoidanceLetsHeadOnRobotsPass() {
+        RobotSwarm swarm = new RobotSwarm(2);
+        swarm.addRobot(0, 0, 100, 0);
+        swarm.addRobot(100, 0, 0, 0);
+        swarm.enableCollisionAvoidance(5);
+        double minGap = Double.MAX_VALUE;
+
+        for (int tick = 0; tick < 400; tick++) {
+            swarm.step(tick, 0.03);
+            minGap = Math.min(minGap, Math.hypot(swarm.getX(0) - swarm.getX(1), swarm.getY(0) - swarm.getY(1)));
+        }
+
+        assertTrue(minGap > 5, "Роботы не сходятся ближе половины дистанции: " + minGap);
+        assertEquals(100, swarm.getX(0), 1, "Встречные роботы разошлись и доехали до целей");
+        assertEquals(0, swarm.getX(1), 1);
+    }
+
+    @Test
+    void testRobotsWithAdjacentGoalsSettle() {
+        RobotSwarm swarm = new RobotSwarm(2);
+        swarm.addRobot(0, 0, 50, 50);
+        swarm.addRobot(100, 0, 52, 50); // Цели ближе дистанции расталкивания
+        swarm.enableCollisionAvoidance(5);
+
+        int tick = 0;
+        do {
+            swarm.step(tick++, 0.03);
+        } while (swarm.getMovingCount() > 0 && tick < 2000);
+
+        assertTrue(swarm.isIdle(), "Роботы у соседних целей затихают, и цикл может уснуть");
+        assertEquals(50, swarm.getX(0), 0.5, "Оба робота стоят у своих целей");
+        assertEquals(52, swarm.getX(1), 0.5);
+        assertEquals(50, swarm.getY(1), 0.5);
+    }
+
+    @Test
+    void testPoseSnapshotsAreConsistentAcrossThreads() {
+        RobotSwarm swarm = new RobotSwarm(1);
+        swarm.addRobot(0, 0, 1e6, 1e6); // Движение по диагонали: в каждом снимке x == y
+        RobotModel view = swarm.view(0);
+        view.addListener(pose -> { });
+        SimulationLoop loop = new SimulationLoop(swarm);
+        loop.setTimeScale(SimulationLoop.AS_FAST_AS_POSSIBLE);
+        loop.start();
+        try {
+            long lastTick = -1;
+            for (int i = 0; i < 200_000; i++) {
+                RobotPose pose = view.getPose();
+                assertEquals(pose.getX(), pose.getY(), 1e-6, "Координаты из одного шага");
+                assertTrue(pose.getTick() >= lastTick, "Снимки не возвращаются назад");
+                lastTick = pose.getTick();
+            }
+            assertTrue(lastTick > 0, "Снимки публикуются каждый шаг");
+
+            view.setTarget(-1e6, -1e6);
+            long commandTick = view.getPose().getTick();
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            RobotPose pose = view.getPose();
+            while (pose.getTick() < commandTick + 2 && System.nanoTime() < deadline) {
+                Thread.yield();
+                pose = view.getPose();
+            }
+            assertEquals(-1e6, pose.getTargetX(), "Цель из другого потока применена к следующему шагу");
+        } finally {
+            loop.stop();
+        }
+    }
+
+    @Test
+    void testCommandsFromManyThreadsKeepSenderOrder() throws InterruptedException {
+        int senders = 4;
+        int points = 3000;
+        RobotSwarm swarm = new RobotSwarm(senders, 0, ForkJoinPool.commonPool()); // Роботы стоят, пути копятся
+        for (int i = 0; i < senders; i++) {
+            swarm.addRobot(0, 0, 0, 0);
+        }
+        Thread[] threads = new Thread[senders];
+        for (int i = 0; i < senders; i++) {
+            int robot = i;
+            threads[i] = new Thread(() -> {
+                for (int k = 0; k < points; k++) {
+                    while (!swarm.submit(RobotCommand.append(robot, new double[] {k, 100 + robot}))) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        // Шаги идут одновременно с отправкой и забирают команды пачками
+        long tick = 0;
+        while (isAlive(threads) || swarm.getQueuedCommands() > 0) {
+            swarm.step(tick++, 0.1);
+        }
+        swarm.step(tick, 0.1);
+
+        for (int robot = 0; robot < senders; robot++) {
+            double[] path = swarm.getRemainingPath(robot);
+            assertEquals(2 * points, path.length, "Все команды применены");
+            for (int k = 0; k < points; k++) {
+                assertEquals(k, path[2 * k], "Точки идут в порядке отправки");
+                assertEquals(100 + robot, path[2 * k + 1], "Команды не попадают к чужому роботу");
+            }
+        }
+    }
+
+    private static boolean isAlive(Thread[] threads) {
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void testFullQueueRejectsAndCancelStops() {
+        RobotSwarm swarm = new RobotSwarm(1, 10, ForkJoinPool.commonPool());
+        int robot = swarm.addRobot(0, 0, 100, 0);
+        for (int i = 0; i < RobotSwarm.COMMAND_CAPACITY; i++) {
+            assertTrue(swarm.submit(RobotCommand.target(robot, 100, i)));
+        }
+        assertFalse(swarm.submit(RobotCommand.target(robot, 0, 0)), "Полная очередь не ждёт и не растёт");
+
+        swarm.step(0, 0.1);
+        assertEquals(RobotSwarm.COMMAND_CAPACITY - RobotSwarm.COMMAND_BATCH, swarm.getQueuedCommands(),
+                "За шаг применяется одна пачка");
+        assertEquals(RobotSwarm.COMMAND_BATCH - 1, swarm.getGoalY(robot), "Последняя команда пачки действует");
+
+        int tick = 1;
+        while (swarm.getQueuedCommands() > 0) {
+            swarm.step(tick++, 0.1);
+        }
+        assertTrue(swarm.submit(RobotCommand.cancel(robot)));
+        swarm.step(tick++, 0.1);
+        double stoppedX = swarm.getX(robot);
+        double stoppedY = swarm.getY(robot);
+        swarm.step(tick, 0.1);
+        assertEquals(stoppedX, swarm.getX(robot), "После отмены робот стоит");
+        assertEquals(stoppedY, swarm.getY(robot));
+        assertEquals(stoppedX, swarm.getGoalX(robot), "Цель — место остановки");
+    }
+
+    @Test
+    void testRejectedCommandKeepsPendingAppend() throws Exception {
+        RobotSwarm swarm = new RobotSwarm(1, 10, ForkJoinPool.commonPool());
+        int robot = swarm.addRobot(0, 0, 100, 0);
+        assertTrue(swarm.submit(RobotCommand.cancel(robot)));
+        // Отрезок ждёт, пока отмена не сообщит, где робот остановился
+        CompletableFuture<Boolean> appended = swarm.appendTarget(robot, 0, 0, 50, 50);
+        while (swarm.submit(RobotCommand.append(robot, new double[] {0, 0}))) {
+            // Заполняем очередь до отказа
+        }
+        assertFalse(swarm.submit(RobotCommand.target(robot, 10, 10)), "Очередь полна");
+
+        swarm.step(0, 0.1);
+        assertTrue(appended.get(1, TimeUnit.SECONDS), "Отклонённая команда не отменила ожидающий отрезок");
+    }
+}
@@ -0,0 +1,99 @@
+package tests;
+
+import model.RobotPose;
+import model.RobotSwarm;
+import model.Simulation;
+import model.SimulationLoop;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationLoopTest {
+    // Модель, которая проверяет номер и длину каждого шага
+    private static final class CountingSimulation implements Simulation {
+        final AtomicLong steps = new AtomicLong();
+        volatile boolean orderBroken;
+        volatile double lastDt;
+        final CountDownLatch reached;
+
+        CountingSimulation(int target) {
+            reached = new CountDownLatch(target);
+        }
+
+        @Override
+        public void step(long tick, double dt) {
+            if (tick != steps.getAndIncrement() || (lastDt != 0 && dt != lastDt)) {
+                orderBroken = true;
+            }
+            lastDt = dt;
+            reached.countDown();
+        }
+    }
+
+    @Test
+    void testFixedStepAtMaximumSpeed() throws InterruptedException {
+        CountingSimulation simulation = new CountingSimulation(10_000);
+        SimulationLoop loop = new SimulationLoop(simulation, 50, 5);
+        loop.setTimeScale(SimulationLoop.AS_FAST_AS_POSSIBLE);
+        loop.start();
+
+        assertTrue(simulation.reached.await(10, TimeUnit.SECONDS), "Без ожидания шаги идут подряд");
+        loop.stop();
+        assertFalse(simulation.orderBroken, "Номера шагов подряд, длина шага постоянна");
+        assertEquals(0.02, simulation.lastDt, 1e-12, "Шаг равен 1 / tickRate");
+    }
+
+    @Test
+    void testPauseStopsTicks() throws InterruptedException {
+        CountingSimulation simulation = new CountingSimulation(1);
+        SimulationLoop loop = new SimulationLoop(simulation, 1000, 5);
+        loop.start();
+        assertTrue(simulation.reached.await(5, TimeUnit.SECONDS));
+
+        loop.setTimeScale(SimulationLoop.PAUSED);
+        Thread.sleep(50);
+        long paused = loop.getTick();
+        Thread.sleep(100);
+        assertEquals(paused, loop.getTick(), "На паузе модель не продвигается");
+        loop.stop();
+    }
+
+    @Test
+    void testLoopSleepsWhileNothingMovesAndWakesOnTarget() throws InterruptedException {
+        RobotSwarm swarm = new RobotSwarm(1, 100, ForkJoinPool.commonPool());
+        int robot = swarm.addRobot(0, 0, 30, 40);
+        SimulationLoop loop = new SimulationLoop(swarm, 100, 5);
+        loop.setTimeScale(SimulationLoop.AS_FAST_AS_POSSIBLE);
+        loop.start();
+
+        awaitIdle(loop);
+        long arrived = loop.getTick();
+        // 50 единиц по 1 за шаг и ещё один шаг, на котором никто не сдвинулся
+        long expected = new RobotPose(0, 0, 0, 30, 40, 0).stepsToArrival(100 * 0.01) + 1;
+        assertEquals(expected, arrived, "Время прибытия известно заранее");
+        Thread.sleep(100);
+        assertEquals(arrived, loop.getTick(), "Без движения шаги не выполняются");
+
+        swarm.setTarget(robot, 30, 0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (swarm.getY(robot) != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, swarm.getY(robot), 1e-9, "Новая цель будит цикл");
+        awaitIdle(loop);
+        loop.stop();
+    }
+
+    private static void awaitIdle(SimulationLoop loop) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!loop.isIdle() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(loop.isIdle(), "Цикл засыпает, когда все роботы у целей");
+    }
+}
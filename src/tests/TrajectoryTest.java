@@ -0,0 +1,49 @@
+package tests;
+
+import model.RobotModel;
+import model.RobotPose;
+import model.RobotSwarm;
+import model.TrajectoryReplay;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrajectoryTest {
+    @Test
+    void testRecordingReplaysEveryTickIncludingIdleOnes() throws Exception {
+        Path file = Files.createTempFile("robots_trajectory", ".rtr");
+        try {
+            RobotSwarm swarm = new RobotSwarm(1);
+            swarm.addRobot(0, 0, 0, 0);
+            RobotModel robot = swarm.view(0);
+            double[] expectedX = new double[150];
+
+            robot.startRecording(file);
+            robot.setTarget(50, 0);
+            for (int tick = 0; tick < 150; tick++) {
+                swarm.step(tick, 0.03); // Робот доезжает за 50 шагов и дальше стоит
+                expectedX[tick] = swarm.getX(0);
+            }
+            robot.stopRecording();
+            assertFalse(robot.isRecording());
+
+            try (TrajectoryReplay replay = TrajectoryReplay.open(file)) {
+                assertEquals(-1, replay.getFirstTick(), "Запись начинается с положения до первого шага");
+                assertEquals(151, replay.getTickCount(), "Стоящий робот тоже записан до остановки записи");
+                assertEquals(0, replay.poseAt(0).getX(), 1e-4);
+                for (int tick : new int[] {149, 0, 75, 10, 49, 50}) { // Произвольный порядок переходов
+                    RobotPose pose = replay.poseAt(tick + 1);
+                    assertEquals(tick, pose.getTick());
+                    assertEquals(expectedX[tick], pose.getX(), 1e-4, "Положение на шаге " + tick);
+                    assertEquals(50, pose.getTargetX(), 1e-4);
+                }
+                assertThrows(IndexOutOfBoundsException.class, () -> replay.poseAt(151));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -1,5 +1,13 @@
 package benchmark;
 
+import log.FileLogAppender;
+import log.LogLevel;
+import log.LogWindowSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -8,6 +16,8 @@ public class OptimizedLoggerBenchmark {
     private static final int WARMUP = 10;
     private static final int ITERATIONS = 10;
     private static final int OPERATIONS = 100_000;
+    private static final LogWindowSource FILE_SOURCE = new LogWindowSource(1024);
+    private static FileLogAppender fileAppender;
 
     static {
         // Тест прямого вывода в консоль с printf
@@ -32,25 +42,44 @@ public class OptimizedLoggerBenchmark {
             }
         });
 
-        // Заглушка для логирования в файл (из SimpleLoggerBenchmark)
+        // Логирование через LogWindowSource с асинхронной записью в файл.
+        // Политика BLOCK, чтобы в замер попадало ожидание фонового потока при переполнении очереди
         TESTS.put("File", () -> {
             for (int i = 0; i < OPERATIONS; i++) {
-                logToFile("Test message " + i); // Можно заменить на реальную реализацию
+                logToFile("Test message " + i);
             }
         });
     }
 
-    // Метод логирования в файл (заглушка, можно реализовать реальную запись)
     private static void logToFile(String message) {
+        FILE_SOURCE.append(LogLevel.Info, message);
+    }
+
+    private static void openLogFile() {
+        try {
+            Path file = Files.createTempFile("robots_benchmark", ".log");
+            file.toFile().deleteOnExit();
+            fileAppender = new FileLogAppender(file, FileLogAppender.OverflowPolicy.BLOCK);
+            FILE_SOURCE.addAppender(fileAppender);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public static void main(String[] args) {
         System.out.printf("Benchmark config: %d warmups, %d iterations, %,d ops/iter%n%n",
                 WARMUP, ITERATIONS, OPERATIONS);
 
-        for (Map.Entry<String, Runnable> test : TESTS.entrySet()) {
-            benchmark(test.getKey(), test.getValue());
-            System.out.println();
+        openLogFile();
+        try {
+            for (Map.Entry<String, Runnable> test : TESTS.entrySet()) {
+                benchmark(test.getKey(), test.getValue());
+                System.out.println();
+            }
+        } finally {
+            fileAppender.close();
+            System.out.printf("File appender: %,d written, %,d dropped%n",
+                    fileAppender.getWrittenCount(), fileAppender.getDroppedCount());
         }
     }
 